@@ -0,0 +1,86 @@
+package com.juahaki.juahaki.util.jwt;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Issuing and parsing tokens through JwtUtil with {@link HmacTokenCodec} against the jjwt
+ * path (fast codec off), in both claim profiles. Run with {@code -prof gc} to compare
+ * allocations per token as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HmacTokenCodecBenchmark {
+
+    @Param({ "STANDARD", "COMPACT" })
+    private ClaimProfile profile;
+
+    private JwtUtil codec;
+    private JwtUtil jjwt;
+    private String accessToken;
+    private String refreshToken;
+
+    @Setup
+    public void setUp() throws Exception {
+        codec = JwtBenchmarkSupport.jwtUtil(true, profile);
+        jjwt = JwtBenchmarkSupport.jwtUtil(false, profile);
+        // Both paths produce the same token, so either can be used as input
+        accessToken = jjwt.generateAccessToken(JwtBenchmarkSupport.USER);
+        refreshToken = jjwt.generateRefreshToken(JwtBenchmarkSupport.USER);
+    }
+
+    @Benchmark
+    public String issueAccessCodec() {
+        return codec.generateAccessToken(JwtBenchmarkSupport.USER);
+    }
+
+    @Benchmark
+    public String issueAccessJjwt() {
+        return jjwt.generateAccessToken(JwtBenchmarkSupport.USER);
+    }
+
+    @Benchmark
+    public String issueRefreshCodec() {
+        return codec.generateRefreshToken(JwtBenchmarkSupport.USER);
+    }
+
+    @Benchmark
+    public String issueRefreshJjwt() {
+        return jjwt.generateRefreshToken(JwtBenchmarkSupport.USER);
+    }
+
+    @Benchmark
+    public VerifiedToken parseAccessCodec() {
+        return codec.parseToken(accessToken);
+    }
+
+    @Benchmark
+    public VerifiedToken parseAccessJjwt() {
+        return jjwt.parseToken(accessToken);
+    }
+
+    @Benchmark
+    public VerifiedToken parseRefreshCodec() {
+        return codec.parseToken(refreshToken);
+    }
+
+    @Benchmark
+    public VerifiedToken parseRefreshJjwt() {
+        return jjwt.parseToken(refreshToken);
+    }
+}
@@ -0,0 +1,47 @@
+package com.juahaki.juahaki.util.jwt;
+
+import com.juahaki.juahaki.enums.Role;
+import com.juahaki.juahaki.model.user.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Builds a {@link JwtUtil} outside Spring with the same settings application.yml uses.
+ */
+final class JwtBenchmarkSupport {
+
+    // Base64 HS256 secret, in the same form as jwt.secret in keys.properties
+    static final String SECRET = "dGhpcy1pcy1hLWJlbmNobWFyay1vbmx5LXNlY3JldC0zMmJ5dGVz";
+
+    static final User USER = User.builder()
+            .id(4242L)
+            .username("jane.doe")
+            .email("jane.doe@example.com")
+            .role(Role.USER)
+            .tokenVersion(3)
+            .build();
+
+    private JwtBenchmarkSupport() {
+    }
+
+    static JwtUtil jwtUtil(boolean fastCodec, ClaimProfile profile) throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        SigningKeyRing keyRing = new SigningKeyRing();
+        ReflectionTestUtils.setField(keyRing, "algorithm", "HS256");
+        ReflectionTestUtils.setField(keyRing, "acceptHmac", true);
+        keyRing.load();
+
+        TokenPreScreener preScreener = new TokenPreScreener(registry);
+        ReflectionTestUtils.setField(preScreener, "maxLength", 4096);
+        ReflectionTestUtils.setField(preScreener, "clockSkewSeconds", 60L);
+
+        JwtUtil jwtUtil = new JwtUtil(preScreener, new VerifiedTokenCache(registry, false, 1, 1), registry, keyRing);
+        ReflectionTestUtils.setField(jwtUtil, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "jwtExpirationMs", 3_600_000);
+        ReflectionTestUtils.setField(jwtUtil, "jwtRefreshExpirationMs", 86_400_000);
+        ReflectionTestUtils.setField(jwtUtil, "fastCodecEnabled", fastCodec);
+        ReflectionTestUtils.setField(jwtUtil, "claimProfile", profile);
+        return jwtUtil;
+    }
+}
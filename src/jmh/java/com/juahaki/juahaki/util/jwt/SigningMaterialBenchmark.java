@@ -0,0 +1,88 @@
+package com.juahaki.juahaki.util.jwt;
+
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * jjwt signing and verification with the key and parser rebuilt on every call, as JwtUtil
+ * used to, against a key and parser built once as {@code SigningMaterial} does.
+ * {@link #verifyJwtUtil()} is the whole jjwt verification path in JwtUtil, fast codec off.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SigningMaterialBenchmark {
+
+    private JwtUtil jwtUtil;
+    private SecretKey key;
+    private JwtParser parser;
+    private String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        jwtUtil = JwtBenchmarkSupport.jwtUtil(false, ClaimProfile.STANDARD);
+        key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(JwtBenchmarkSupport.SECRET));
+        parser = Jwts.parser().verifyWith(key).build();
+        token = jwtUtil.generateAccessToken(JwtBenchmarkSupport.USER);
+    }
+
+    @Benchmark
+    public Object verifyRebuildingKeyAndParser() {
+        SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(JwtBenchmarkSupport.SECRET));
+        return Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
+    }
+
+    @Benchmark
+    public Object verifyCached() {
+        return parser.parseSignedClaims(token).getPayload();
+    }
+
+    @Benchmark
+    public Object verifyJwtUtil() {
+        return jwtUtil.parseToken(token);
+    }
+
+    @Benchmark
+    public String signRebuildingKey() {
+        return sign(Keys.hmacShaKeyFor(Decoders.BASE64.decode(JwtBenchmarkSupport.SECRET)));
+    }
+
+    @Benchmark
+    public String signCached() {
+        return sign(key);
+    }
+
+    private static String sign(SecretKey key) {
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .id("0f8fad5b-d9cb-469f-a165-70867728950e")
+                .subject("jane.doe")
+                .claim("userId", 4242L)
+                .claim("email", "jane.doe@example.com")
+                .claim("role", "USER")
+                .claim("ver", 3)
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + 3_600_000))
+                .signWith(key)
+                .compact();
+    }
+}
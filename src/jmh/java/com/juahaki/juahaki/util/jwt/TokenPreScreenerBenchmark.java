@@ -0,0 +1,45 @@
+package com.juahaki.juahaki.util.jwt;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pre-screening a valid access token, the case every authenticated request pays for.
+ * Run with {@code -prof gc}: the screen itself should not allocate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenPreScreenerBenchmark {
+
+    private TokenPreScreener preScreener;
+    private String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        preScreener = new TokenPreScreener(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(preScreener, "maxLength", 4096);
+        ReflectionTestUtils.setField(preScreener, "clockSkewSeconds", 60L);
+        token = JwtBenchmarkSupport.jwtUtil(true, ClaimProfile.STANDARD).generateAccessToken(JwtBenchmarkSupport.USER);
+    }
+
+    @Benchmark
+    public Object screenValidToken() {
+        return preScreener.screen(token);
+    }
+}
@@ -0,0 +1,39 @@
+package com.juahaki.juahaki.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import java.util.Arrays;
+
+/**
+ * Routes that are permitAll in {@link SecurityConfig}. The same list backs a
+ * precompiled matcher so the JWT filter can skip token work on these paths.
+ */
+public final class PublicRoutes {
+
+    public static final String[] PATTERNS = {
+            "/api/v1/user/forgot-password",
+            "/api/v1/user/reset-password",
+            "/api/v1/auth/**",
+            "/v3/api-docs/**",
+            "/swagger-ui/**",
+            "/swagger-ui.html",
+            "/actuator/health",
+            "/.well-known/jwks.json",
+            "/oauth2/**",
+            "/oauth_test_page.html"
+    };
+
+    private static final RequestMatcher MATCHER = new OrRequestMatcher(Arrays.stream(PATTERNS)
+            .map(pattern -> (RequestMatcher) PathPatternRequestMatcher.withDefaults().matcher(pattern))
+            .toList());
+
+    private PublicRoutes() {
+    }
+
+    public static boolean matches(HttpServletRequest request) {
+        return MATCHER.matches(request);
+    }
+}
@@ -6,15 +6,20 @@ import com.juahaki.juahaki.dto.admin.user.UserFilterRequest;
 import com.juahaki.juahaki.dto.admin.user.UserStatsResponse;
 import com.juahaki.juahaki.enums.Role;
 import com.juahaki.juahaki.response.ApiResponse;
+import com.juahaki.juahaki.security.jwt.CurrentUser;
 import com.juahaki.juahaki.service.admin.user.IAdminUserManagementService;
+import com.juahaki.juahaki.service.admin.user.IUserImportService;
+import com.juahaki.juahaki.service.admin.user.UserImportFormat;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -25,120 +30,133 @@ import java.util.List;
 public class AdminUserController {
 
     private final IAdminUserManagementService adminUserManagementService;
+    private final IUserImportService userImportService;
 
     @GetMapping("/get-all-users")
     public ResponseEntity<ApiResponse> getAllUsers(
-            HttpServletRequest request,
             @Valid UserFilterRequest filterRequest,
             @PageableDefault(size = 20, sort = "createdAt") Pageable pageable) {
 
-        AdminUserPageResponse users = adminUserManagementService.getAllUsers(request, filterRequest, pageable);
+        AdminUserPageResponse users = adminUserManagementService.getAllUsers(filterRequest, pageable);
         return ResponseEntity.ok(new ApiResponse("Users retrieved successfully", users));
     }
 
     @GetMapping("/get-by-id/{userId}")
     public ResponseEntity<ApiResponse> getUserById(
-            HttpServletRequest request,
             @PathVariable Long userId) {
 
-        AdminUserResponse user = adminUserManagementService.getUserById(request, userId);
+        AdminUserResponse user = adminUserManagementService.getUserById(userId);
         return ResponseEntity.ok(new ApiResponse("User retrieved successfully", user));
     }
 
     @DeleteMapping("/delete-by-id/{userId}")
     public ResponseEntity<ApiResponse> deleteUser(
-            HttpServletRequest request,
+            CurrentUser currentUser,
             @PathVariable Long userId) {
 
-        adminUserManagementService.deleteUser(request, userId);
+        adminUserManagementService.deleteUser(currentUser, userId);
         return ResponseEntity.ok(new ApiResponse("User deleted successfully", null));
     }
 
     @PutMapping("/{userId}/lock")
     public ResponseEntity<ApiResponse> lockUser(
-            HttpServletRequest request,
+            CurrentUser currentUser,
             @PathVariable Long userId) {
 
-        AdminUserResponse user = adminUserManagementService.lockUser(request, userId);
+        AdminUserResponse user = adminUserManagementService.lockUser(currentUser, userId);
         return ResponseEntity.ok(new ApiResponse("User locked successfully", user));
     }
 
     @PutMapping("/{userId}/unlock")
     public ResponseEntity<ApiResponse> unlockUser(
-            HttpServletRequest request,
+            CurrentUser currentUser,
             @PathVariable Long userId) {
 
-        AdminUserResponse user = adminUserManagementService.unlockUser(request, userId);
+        AdminUserResponse user = adminUserManagementService.unlockUser(currentUser, userId);
         return ResponseEntity.ok(new ApiResponse("User unlocked successfully", user));
     }
 
     @PutMapping("/{userId}/change-role")
     public ResponseEntity<ApiResponse> changeUserRole(
-            HttpServletRequest request,
+            CurrentUser currentUser,
             @PathVariable Long userId,
             @RequestParam Role newRole) {
 
-        AdminUserResponse user = adminUserManagementService.changeUserRole(request, userId, newRole);
+        AdminUserResponse user = adminUserManagementService.changeUserRole(currentUser, userId, newRole);
         return ResponseEntity.ok(new ApiResponse("User role changed successfully", user));
     }
 
     @GetMapping("/statistics")
-    public ResponseEntity<ApiResponse> getUserStatistics(HttpServletRequest request) {
-        UserStatsResponse stats = adminUserManagementService.getUserStatistics(request);
+    public ResponseEntity<ApiResponse> getUserStatistics() {
+        UserStatsResponse stats = adminUserManagementService.getUserStatistics();
         return ResponseEntity.ok(new ApiResponse("User statistics retrieved successfully", stats));
     }
 
     @GetMapping("/search")
     public ResponseEntity<ApiResponse> searchUsers(
-            HttpServletRequest request,
             @RequestParam String searchTerm) {
 
-        List<AdminUserResponse> users = adminUserManagementService.searchUsers(request, searchTerm);
+        List<AdminUserResponse> users = adminUserManagementService.searchUsers(searchTerm);
         return ResponseEntity.ok(new ApiResponse("Users search completed successfully", users));
     }
 
     @GetMapping("/recent")
     public ResponseEntity<ApiResponse> getRecentlyRegisteredUsers(
-            HttpServletRequest request,
             @RequestParam(defaultValue = "10") int limit) {
 
-        List<AdminUserResponse> users = adminUserManagementService.getRecentlyRegisteredUsers(request, limit);
+        List<AdminUserResponse> users = adminUserManagementService.getRecentlyRegisteredUsers(limit);
         return ResponseEntity.ok(new ApiResponse("Recently registered users retrieved successfully", users));
     }
 
     @GetMapping("/inactive")
     public ResponseEntity<ApiResponse> getInactiveUsers(
-            HttpServletRequest request,
             @RequestParam(defaultValue = "30") int daysSinceLastActivity) {
 
-        List<AdminUserResponse> users = adminUserManagementService.getInactiveUsers(request, daysSinceLastActivity);
+        List<AdminUserResponse> users = adminUserManagementService.getInactiveUsers(daysSinceLastActivity);
         return ResponseEntity.ok(new ApiResponse("Inactive users retrieved successfully", users));
     }
 
     @DeleteMapping("/bulk-delete")
     public ResponseEntity<ApiResponse> bulkDeleteUsers(
-            HttpServletRequest request,
+            CurrentUser currentUser,
             @RequestBody List<Long> userIds) {
 
-        adminUserManagementService.bulkDeleteUsers(request, userIds);
+        adminUserManagementService.bulkDeleteUsers(currentUser, userIds);
         return ResponseEntity.ok(new ApiResponse("Users deleted successfully", null));
     }
 
     @PutMapping("/bulk/activate")
     public ResponseEntity<ApiResponse> bulkActivateUsers(
-            HttpServletRequest request,
+            CurrentUser currentUser,
             @RequestBody List<Long> userIds) {
 
-        adminUserManagementService.bulkActivateUsers(request, userIds);
+        adminUserManagementService.bulkActivateUsers(currentUser, userIds);
         return ResponseEntity.ok(new ApiResponse("Users activated successfully", null));
     }
 
     @PutMapping("/bulk/deactivate")
     public ResponseEntity<ApiResponse> bulkDeactivateUsers(
-            HttpServletRequest request,
+            CurrentUser currentUser,
             @RequestBody List<Long> userIds) {
 
-        adminUserManagementService.bulkDeactivateUsers(request, userIds);
+        adminUserManagementService.bulkDeactivateUsers(currentUser, userIds);
         return ResponseEntity.ok(new ApiResponse("Users deactivated successfully", null));
     }
-}
\ No newline at end of file
+
+    /**
+     * Streams a CSV (with header) or NDJSON upload into the users table and streams back one
+     * NDJSON result line per row plus a final summary line.
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"}, produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> importUsers(
+            HttpServletRequest request,
+            @RequestParam(defaultValue = "true") boolean verified) {
+
+        UserImportFormat format = UserImportFormat.fromContentType(request.getContentType());
+        StreamingResponseBody report = output ->
+                userImportService.importUsers(request.getInputStream(), format, verified, output);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(report);
+    }
+}
@@ -7,7 +7,10 @@ import com.juahaki.juahaki.dto.auth.SignUpRequest;
 import com.juahaki.juahaki.dto.otp.VerifyOtpRequest;
 import com.juahaki.juahaki.dto.user.UserInfo;
 import com.juahaki.juahaki.response.ApiResponse;
+import com.juahaki.juahaki.security.ratelimit.AuthRateLimiter;
+import com.juahaki.juahaki.security.ratelimit.RateLimitPolicy;
 import com.juahaki.juahaki.service.customauth.IAuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -20,6 +23,7 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
 
     private final IAuthService authService;
+    private final AuthRateLimiter authRateLimiter;
 
     @PostMapping("/signup")
     public ResponseEntity<ApiResponse> signUp(@RequestBody SignUpRequest signUpRequest) {
@@ -32,10 +36,12 @@ public class AuthController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<ApiResponse> login(@RequestBody LoginRequest loginRequest) {
+    public ResponseEntity<ApiResponse> login(@RequestBody LoginRequest loginRequest, HttpServletRequest request) {
         log.info("Processing login request for: {}", loginRequest.getUsernameOrEmail());
 
+        authRateLimiter.checkAttempt(RateLimitPolicy.LOGIN, loginRequest.getUsernameOrEmail(), request);
         JwtResponse jwtResponse = authService.login(loginRequest);
+        authRateLimiter.recordSuccess(RateLimitPolicy.LOGIN, loginRequest.getUsernameOrEmail());
 
         log.info("Successfully processed login for user: {}", jwtResponse.getUser().getUsername());
         return ResponseEntity.ok(new ApiResponse("Successfully logged in", jwtResponse));
@@ -51,10 +57,22 @@ public class AuthController {
         return ResponseEntity.ok(new ApiResponse("Successfully refreshed token", jwtResponse));
     }
 
+    @PostMapping("/logout")
+    public ResponseEntity<ApiResponse> logout(
+            HttpServletRequest request,
+            @RequestBody(required = false) RefreshTokenRequest refreshTokenRequest) {
+        log.info("Processing logout request");
+
+        authService.logout(request, refreshTokenRequest);
+
+        return ResponseEntity.ok(new ApiResponse("Successfully logged out", null));
+    }
+
     @PostMapping("/verify-email")
-    public ResponseEntity<ApiResponse> verifyEmail(@RequestBody VerifyOtpRequest verifyOtpRequest) {
+    public ResponseEntity<ApiResponse> verifyEmail(@RequestBody VerifyOtpRequest verifyOtpRequest, HttpServletRequest request) {
         log.info("Processing email verification for: {}", verifyOtpRequest.getEmail());
 
+        authRateLimiter.checkAttempt(RateLimitPolicy.VERIFY_EMAIL, verifyOtpRequest.getEmail(), request);
         authService.verifyEmailOtp(verifyOtpRequest);
 
         log.info("Successfully verified email for: {}", verifyOtpRequest.getEmail());
@@ -62,9 +80,10 @@ public class AuthController {
     }
 
     @PostMapping("/resend-verification")
-    public ResponseEntity<ApiResponse> resendEmailVerification(@RequestParam String email) {
+    public ResponseEntity<ApiResponse> resendEmailVerification(@RequestParam String email, HttpServletRequest request) {
         log.info("Processing resend verification request for: {}", email);
 
+        authRateLimiter.checkAttempt(RateLimitPolicy.RESEND_VERIFICATION, email, request);
         authService.resendEmailVerificationOtp(email);
 
         log.info("Successfully sent verification email to: {}", email);
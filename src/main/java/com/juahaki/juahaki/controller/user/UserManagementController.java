@@ -4,6 +4,9 @@ import com.juahaki.juahaki.dto.user.UpdatePasswordRequest;
 import com.juahaki.juahaki.dto.user.UpdateProfileRequest;
 import com.juahaki.juahaki.dto.user.UserInfo;
 import com.juahaki.juahaki.response.ApiResponse;
+import com.juahaki.juahaki.security.jwt.CurrentUser;
+import com.juahaki.juahaki.security.ratelimit.AuthRateLimiter;
+import com.juahaki.juahaki.security.ratelimit.RateLimitPolicy;
 import com.juahaki.juahaki.service.user.IUserManagementService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
@@ -19,39 +22,41 @@ import org.springframework.web.bind.annotation.*;
 public class UserManagementController {
 
     private final IUserManagementService userManagementService;
+    private final AuthRateLimiter authRateLimiter;
 
     @GetMapping("/get-profile")
-    public ResponseEntity<ApiResponse> getUserProfile(HttpServletRequest request) {
-        UserInfo userInfo = userManagementService.getUserById(request);
+    public ResponseEntity<ApiResponse> getUserProfile(CurrentUser currentUser) {
+        UserInfo userInfo = userManagementService.getUserById(currentUser);
         return ResponseEntity.ok(new ApiResponse("User profile retrieved successfully", userInfo));
     }
 
     @PutMapping("/update-profile")
     public ResponseEntity<ApiResponse> updateProfile(
-            HttpServletRequest request,
+            CurrentUser currentUser,
             @RequestBody UpdateProfileRequest updateProfileRequest) {
 
-        UserInfo updatedUser = userManagementService.updateProfile(request, updateProfileRequest);
+        UserInfo updatedUser = userManagementService.updateProfile(currentUser, updateProfileRequest);
         return ResponseEntity.ok(new ApiResponse("Profile updated successfully", updatedUser));
     }
 
     @PutMapping("/password")
     public ResponseEntity<ApiResponse> updatePassword(
-            HttpServletRequest request,
+            CurrentUser currentUser,
             @Valid @RequestBody UpdatePasswordRequest updatePasswordRequest) {
 
-        UserInfo updatedUser = userManagementService.updatePassword(request, updatePasswordRequest);
+        UserInfo updatedUser = userManagementService.updatePassword(currentUser, updatePasswordRequest);
         return ResponseEntity.ok(new ApiResponse("Password updated successfully", updatedUser));
     }
 
     @DeleteMapping("/account")
-    public ResponseEntity<ApiResponse> deleteAccount(HttpServletRequest request) {
-        userManagementService.deleteUser(request);
+    public ResponseEntity<ApiResponse> deleteAccount(CurrentUser currentUser) {
+        userManagementService.deleteUser(currentUser);
         return ResponseEntity.ok(new ApiResponse("Account deleted successfully", null));
     }
 
     @PostMapping("/password/reset/initiate")
-    public ResponseEntity<ApiResponse> initiatePasswordReset(@RequestParam String email) {
+    public ResponseEntity<ApiResponse> initiatePasswordReset(@RequestParam String email, HttpServletRequest request) {
+        authRateLimiter.checkAttempt(RateLimitPolicy.PASSWORD_RESET_INITIATE, email, request);
         userManagementService.initiatePasswordReset(email);
         return ResponseEntity.ok(new ApiResponse("Password reset initiated successfully", null));
     }
@@ -60,8 +65,10 @@ public class UserManagementController {
     public ResponseEntity<ApiResponse> resetPassword(
             @RequestParam String email,
             @RequestParam String otp,
-            @RequestParam String newPassword) {
+            @RequestParam String newPassword,
+            HttpServletRequest request) {
 
+        authRateLimiter.checkAttempt(RateLimitPolicy.PASSWORD_RESET_CONFIRM, email, request);
         userManagementService.resetPassword(email, otp, newPassword);
         return ResponseEntity.ok(new ApiResponse("Password reset completed successfully", null));
     }
@@ -0,0 +1,42 @@
+package com.juahaki.juahaki.controller.wellknown;
+
+import com.juahaki.juahaki.util.jwt.SigningKeyRing;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+
+/**
+ * Public keys for verifying our tokens without calling back into this service.
+ * The document is serialized once at startup; clients revalidate with If-None-Match.
+ */
+@RestController
+@RequiredArgsConstructor
+public class JwksController {
+
+    private static final CacheControl CACHE_CONTROL = CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic();
+
+    private final SigningKeyRing signingKeyRing;
+
+    @GetMapping(value = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getJwks(@RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        String etag = signingKeyRing.getJwksEtag();
+        if (etag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CACHE_CONTROL)
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CACHE_CONTROL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(signingKeyRing.getJwks());
+    }
+}
@@ -0,0 +1,33 @@
+package com.juahaki.juahaki.dto.admin.user;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One line of the NDJSON import report: a row outcome, or the final summary
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserImportResult {
+
+    public static final String IMPORTED = "imported";
+    public static final String SKIPPED = "skipped";
+    public static final String FAILED = "failed";
+    public static final String SUMMARY = "summary";
+
+    private String status;
+    private Long line;
+    private String username;
+    private String message;
+
+    // Only set on the summary line
+    private Long imported;
+    private Long skipped;
+    private Long failed;
+}
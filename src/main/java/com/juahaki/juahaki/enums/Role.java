@@ -4,13 +4,26 @@ import lombok.Getter;
 
 @Getter
 public enum Role {
-    USER("ROLE_USER"),
-    ADMIN("ROLE_ADMIN");
+    USER("ROLE_USER", "U"),
+    ADMIN("ROLE_ADMIN", "A");
 
     private final String authority;
 
-    Role(String authority) {
+    // Single-letter form used in compact token claims
+    private final String code;
+
+    Role(String authority, String code) {
         this.authority = authority;
+        this.code = code;
+    }
+
+    public static Role fromCode(String code) {
+        for (Role role: values()) {
+            if (role.getCode().equals(code)) {
+                return role;
+            }
+        }
+        throw new IllegalArgumentException("Unknown role code: " + code);
     }
 
     public static Role fromAuthority(String authority) {
@@ -0,0 +1,16 @@
+package com.juahaki.juahaki.exception;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a bounded resource is saturated; mapped to 503 with a Retry-After header.
+ */
+@Getter
+public class ServiceBusyException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public ServiceBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
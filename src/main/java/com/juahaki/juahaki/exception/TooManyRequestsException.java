@@ -0,0 +1,16 @@
+package com.juahaki.juahaki.exception;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a caller exceeds an attempt limit; mapped to 429 with a Retry-After header.
+ */
+@Getter
+public class TooManyRequestsException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
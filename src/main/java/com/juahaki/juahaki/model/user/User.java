@@ -79,6 +79,11 @@ public class User implements UserDetails {
     @Builder.Default
     private boolean isEnabled = false;
 
+    // Embedded in every token; bumping it invalidates all tokens issued before
+    @Builder.Default
+    @Column(name = "token_version", nullable = false, columnDefinition = "integer default 0")
+    private int tokenVersion = 0;
+
     @PrePersist
     protected void onCreate() {
         this.createdAt = LocalDateTime.now();
@@ -133,6 +138,10 @@ public class User implements UserDetails {
         return provider == AuthProvider.LOCAL;
     }
 
+    public void incrementTokenVersion() {
+        this.tokenVersion++;
+    }
+
     // Convenience methods for role checking
     public boolean isAdmin() {
         return this.role == Role.ADMIN;
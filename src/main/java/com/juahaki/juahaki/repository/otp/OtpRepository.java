@@ -24,14 +24,14 @@ public interface OtpRepository extends JpaRepository<Otp, Long> {
     @Query("SELECT o FROM Otp o WHERE o.user = :user AND o.type = :type AND o.isUsed = false AND o.isExpired = false ORDER BY o.createdAt DESC")
     Optional<Otp> findLatestValidOtpByUserAndType(@Param("user") User user, @Param("type") OtpType type);
 
-    @Modifying
-    @Query("UPDATE Otp o SET o.isExpired = true WHERE o.expiresAt <= :now")
-    void markExpiredOtps(@Param("now") LocalDateTime now);
-
     @Modifying
     @Query("UPDATE Otp o SET o.isExpired = true WHERE o.user = :user AND o.type = :type AND o.isUsed = false")
     void invalidateUserOtpsByType(@Param("user") User user, @Param("type") OtpType type);
 
+    @Modifying
+    @Query("UPDATE Otp o SET o.isExpired = true WHERE o.email = :email AND o.type = :type AND o.isUsed = false")
+    void invalidateByEmailAndType(@Param("email") String email, @Param("type") OtpType type);
+
     @Modifying
     @Query("DELETE FROM Otp o WHERE o.createdAt <= :cutoffDate")
     void deleteOldOtps(@Param("cutoffDate") LocalDateTime cutoffDate);
@@ -0,0 +1,51 @@
+package com.juahaki.juahaki.repository.token;
+
+import com.juahaki.juahaki.model.token.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    /**
+     * Inserts a token unless any token of its family has been revoked, so a revocation made
+     * on any instance is enforced here. Returns 0 when the family is revoked.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO refresh_tokens (token_hash, parent_hash, family_id, user_id, expires_at, created_at) " +
+            "SELECT CAST(:tokenHash AS varchar), CAST(:parentHash AS varchar), CAST(:familyId AS uuid), " +
+            "CAST(:userId AS bigint), CAST(:expiresAt AS timestamp), CAST(:now AS timestamp) " +
+            "WHERE NOT EXISTS (SELECT 1 FROM refresh_tokens WHERE family_id = CAST(:familyId AS uuid) AND revoked_at IS NOT NULL)",
+            nativeQuery = true)
+    int insertUnlessFamilyRevoked(@Param("tokenHash") String tokenHash,
+                                  @Param("parentHash") String parentHash,
+                                  @Param("familyId") UUID familyId,
+                                  @Param("userId") Long userId,
+                                  @Param("expiresAt") LocalDateTime expiresAt,
+                                  @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.revokedAt = :now WHERE r.familyId = :familyId AND r.revokedAt IS NULL")
+    int revokeFamily(@Param("familyId") UUID familyId, @Param("now") LocalDateTime now);
+
+    /**
+     * Deletes at most {@code limit} expired rows so each call holds locks only briefly.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM refresh_tokens WHERE id IN " +
+            "(SELECT id FROM refresh_tokens WHERE expires_at <= :now LIMIT :limit)", nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+}
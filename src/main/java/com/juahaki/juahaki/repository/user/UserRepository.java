@@ -3,15 +3,21 @@ package com.juahaki.juahaki.repository.user;
 import com.juahaki.juahaki.enums.AuthProvider;
 import com.juahaki.juahaki.enums.Role;
 import com.juahaki.juahaki.model.user.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User> {
@@ -26,6 +32,25 @@ public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificat
 
     boolean existsByRole(Role role);
 
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.id = :id AND u.password = :oldHash")
+    int updatePasswordHash(@Param("id") Long id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
+
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.id = :id")
+    Optional<Integer> findTokenVersionById(@Param("id") Long id);
+
+    // Range form of "username LIKE :lower%". Compared byte-wise so the bounds hold under any
+    // database collation; served by the users_username_c_idx index UsernameAllocator creates
+    @Query(value = "SELECT username FROM users WHERE username COLLATE \"C\" >= :lower "
+            + "AND username COLLATE \"C\" < :upper", nativeQuery = true)
+    List<String> findUsernamesInRange(@Param("lower") String lower, @Param("upper") String upper);
+
+    // Must be consumed inside a read-only transaction and closed
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT u.username, u.email FROM User u")
+    Stream<Object[]> streamUsernamesAndEmails();
+
 
     long countByIsEnabledTrue();
 
@@ -0,0 +1,59 @@
+package com.juahaki.juahaki.security.jwt;
+
+import com.juahaki.juahaki.enums.Role;
+import com.juahaki.juahaki.model.user.User;
+import com.juahaki.juahaki.security.oauth.OAuth2UserPrincipal;
+import lombok.Builder;
+import lombok.Getter;
+import org.springframework.security.core.Authentication;
+
+/**
+ * The caller of the current request, taken from the principal that
+ * {@link JwtAuthenticationFilter} (or OAuth2 login) already authenticated.
+ * Resolved into controller methods by {@link CurrentUserArgumentResolver}.
+ */
+@Getter
+@Builder
+public class CurrentUser {
+
+    private final Long id;
+    private final String username;
+    private final String email;
+    private final Role role;
+
+    public boolean isAdmin() {
+        return this.role == Role.ADMIN;
+    }
+
+    public static CurrentUser from(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return null;
+        }
+
+        Object principal = authentication.getPrincipal();
+        if (principal instanceof User user) {
+            return from(user);
+        }
+        if (principal instanceof JwtUserPrincipal jwtUserPrincipal) {
+            return CurrentUser.builder()
+                    .id(jwtUserPrincipal.getId())
+                    .username(jwtUserPrincipal.getUsername())
+                    .email(jwtUserPrincipal.getEmail())
+                    .role(jwtUserPrincipal.getRole())
+                    .build();
+        }
+        if (principal instanceof OAuth2UserPrincipal oAuth2UserPrincipal) {
+            return from(oAuth2UserPrincipal.getUser());
+        }
+        return null;
+    }
+
+    public static CurrentUser from(User user) {
+        return CurrentUser.builder()
+                .id(user.getId())
+                .username(user.getUsername())
+                .email(user.getEmail())
+                .role(user.getRole())
+                .build();
+    }
+}
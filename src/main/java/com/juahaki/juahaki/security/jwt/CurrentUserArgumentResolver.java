@@ -0,0 +1,33 @@
+package com.juahaki.juahaki.security.jwt;
+
+import com.juahaki.juahaki.exception.CustomException;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+@Component
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return CurrentUser.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(
+            MethodParameter parameter,
+            ModelAndViewContainer mavContainer,
+            NativeWebRequest webRequest,
+            WebDataBinderFactory binderFactory) {
+
+        CurrentUser currentUser = CurrentUser.from(SecurityContextHolder.getContext().getAuthentication());
+        if (currentUser == null || currentUser.getId() == null) {
+            throw new CustomException("Unauthorized access - authentication is required");
+        }
+        return currentUser;
+    }
+}
@@ -1,12 +1,17 @@
 package com.juahaki.juahaki.security.jwt;
 
+import com.juahaki.juahaki.config.PublicRoutes;
+import com.juahaki.juahaki.service.token.ITokenRevocationService;
+import com.juahaki.juahaki.service.token.ITokenVersionService;
 import com.juahaki.juahaki.util.jwt.JwtUtil;
+import com.juahaki.juahaki.util.jwt.VerifiedToken;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -16,6 +21,7 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Date;
 
 @Component
 @RequiredArgsConstructor
@@ -24,6 +30,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final UserDetailsServiceImpl userDetailsService;
+    private final ITokenRevocationService tokenRevocationService;
+    private final ITokenVersionService tokenVersionService;
+
+    @Value("${app.jwt.stateless-auth.enabled:false}")
+    private boolean statelessAuthEnabled;
+
+    @Value("${app.jwt.stateless-auth.max-token-age-ms:0}")
+    private long statelessMaxTokenAgeMs;
 
     @Override
     protected void doFilterInternal(
@@ -33,15 +47,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (StringUtils.hasText(jwt) && jwtUtil.validateToken(jwt)) {
-                String username = jwtUtil.getUsernameFromToken(jwt);
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                if (jwtUtil.validateUserToken(jwt, userDetails)) {
-                    UsernamePasswordAuthenticationToken authenticationToken =
-                            new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                    authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authenticationToken);
-                }
+            if (StringUtils.hasText(jwt)) {
+                jwtUtil.verifyToken(jwt).ifPresent(verifiedToken -> authenticate(verifiedToken, request));
             }
         } catch (Exception e) {
             throw new RuntimeException(e);
@@ -49,6 +56,65 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Public routes never need a principal, so a stray or expired header on a login
+     * or health-check call costs nothing.
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return PublicRoutes.matches(request);
+    }
+
+    private void authenticate(VerifiedToken verifiedToken, HttpServletRequest request) {
+        if (tokenRevocationService.isRevoked(verifiedToken)) {
+            log.debug("Rejected revoked token for subject: {}", verifiedToken.getSubject());
+            return;
+        }
+
+        // Password change, lock and role change bump the version and retire every older token
+        if (!tokenVersionService.isCurrent(verifiedToken)) {
+            log.debug("Rejected token with stale version for subject: {}", verifiedToken.getSubject());
+            return;
+        }
+
+        if (canAuthenticateFromClaims(verifiedToken)) {
+            setAuthentication(new JwtUserPrincipal(verifiedToken), request);
+            return;
+        }
+
+        UserDetails userDetails = userDetailsService.loadUserByUsername(verifiedToken.getSubject());
+        if (jwtUtil.validateUserToken(verifiedToken, userDetails)) {
+            setAuthentication(userDetails, request);
+        }
+    }
+
+    /**
+     * In stateless mode a fresh access token with a current version is trusted as-is.
+     * Password change, lock and role change take effect through the version check above;
+     * anything else once the token is older than the configured max age and falls back
+     * to the database-backed load below.
+     */
+    private boolean canAuthenticateFromClaims(VerifiedToken verifiedToken) {
+        if (!statelessAuthEnabled || verifiedToken.isRefreshToken()) {
+            return false;
+        }
+        if (verifiedToken.getUserId() == null || verifiedToken.getRole() == null) {
+            return false;
+        }
+        if (statelessMaxTokenAgeMs > 0) {
+            Date issuedAt = verifiedToken.getIssuedAt();
+            return issuedAt != null && System.currentTimeMillis() - issuedAt.getTime() <= statelessMaxTokenAgeMs;
+        }
+        return true;
+    }
+
+    private void setAuthentication(UserDetails userDetails, HttpServletRequest request) {
+        UsernamePasswordAuthenticationToken authenticationToken =
+                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+    }
+
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
@@ -0,0 +1,45 @@
+package com.juahaki.juahaki.security.jwt;
+
+import com.juahaki.juahaki.enums.Role;
+import com.juahaki.juahaki.util.jwt.VerifiedToken;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Lightweight principal built straight from verified access token claims,
+ * used when stateless authentication is enabled so no user row is loaded.
+ */
+@Getter
+public class JwtUserPrincipal implements UserDetails {
+
+    private final Long id;
+    private final String username;
+    private final String email;
+    private final Role role;
+
+    public JwtUserPrincipal(VerifiedToken verifiedToken) {
+        this.id = verifiedToken.getUserId();
+        this.username = verifiedToken.getSubject();
+        this.email = verifiedToken.getEmail();
+        this.role = verifiedToken.getRole();
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority(role.getAuthority()));
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    public boolean isAdmin() {
+        return this.role == Role.ADMIN;
+    }
+}
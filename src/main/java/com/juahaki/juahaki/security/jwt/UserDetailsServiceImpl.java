@@ -1,31 +1,125 @@
 package com.juahaki.juahaki.security.jwt;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.juahaki.juahaki.model.user.User;
 import com.juahaki.juahaki.repository.user.UserRepository;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Set;
 
 @Service
-@RequiredArgsConstructor
+@Slf4j
 public class UserDetailsServiceImpl implements UserDetailsService {
     private final UserRepository userRepository;
 
+    // Login (username or email) to user id; the user itself is only held in usersById,
+    // so evicting a user is a single keyed removal
+    private final Cache<String, Long> userIdsByLogin;
+    private final Cache<Long, User> usersById;
+
+    public UserDetailsServiceImpl(
+            UserRepository userRepository,
+            MeterRegistry meterRegistry,
+            @Value("${app.security.user-cache.max-size:10000}") long maxSize,
+            @Value("${app.security.user-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.userIdsByLogin = buildCache(maxSize, ttlSeconds);
+        this.usersById = buildCache(maxSize, ttlSeconds);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, userIdsByLogin, "userDetailsByLogin");
+        CaffeineCacheMetrics.monitor(meterRegistry, usersById, "userDetailsById");
+    }
+
+    private static <K, V> Cache<K, V> buildCache(long maxSize, long ttlSeconds) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
     @Override
     public UserDetails loadUserByUsername(String usernameOrEmail) throws UsernameNotFoundException {
+        Long id = userIdsByLogin.getIfPresent(usernameOrEmail);
+        if (id != null) {
+            User cached = usersById.getIfPresent(id);
+            // After a rename the old login still maps to the id; only use the entry if it still matches
+            if (cached != null && (usernameOrEmail.equals(cached.getUsername())
+                    || usernameOrEmail.equals(cached.getEmail()))) {
+                return cached;
+            }
+        }
+
         User user = userRepository.findByUsernameOrEmail(usernameOrEmail, usernameOrEmail)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        userIdsByLogin.put(usernameOrEmail, user.getId());
+        usersById.put(user.getId(), user);
         return user;
     }
 
     @Transactional
     public UserDetails loadUserById(Long id) throws UsernameNotFoundException {
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        User user = usersById.getIfPresent(id);
+        if (user != null) {
+            return user;
+        }
 
+        user = userRepository.findById(id)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        usersById.put(id, user);
         return user;
     }
+
+    /**
+     * Drop every cached entry for the user, now and again once the surrounding
+     * transaction commits so a concurrent load cannot re-cache the old row.
+     */
+    public void evictUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        evictUsers(Set.of(userId));
+    }
+
+    public void evictUser(User user) {
+        if (user != null) {
+            evictUser(user.getId());
+        }
+    }
+
+    public void evictUsers(Collection<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+        Set<Long> ids = Set.copyOf(userIds);
+        removeFromCaches(ids);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    removeFromCaches(ids);
+                }
+            });
+        }
+    }
+
+    private void removeFromCaches(Set<Long> ids) {
+        // Login entries only hold the id, so they resolve to a fresh load once the user is gone
+        usersById.invalidateAll(ids);
+        log.debug("Evicted cached user details for ids: {}", ids);
+    }
 }
@@ -0,0 +1,105 @@
+package com.juahaki.juahaki.security.password;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Rejects passwords that appear in a local list of breached password hashes. Nothing leaves
+ * the process: the list is a memory-mapped {@link BreachedPasswordFile}, so the lookup is a
+ * SHA-1 and a binary search over pages the OS keeps cached, with no per-entry heap.
+ * <p>
+ * If {@code source} points at a sorted text list of SHA-1 hashes and {@code file} is missing
+ * or older than it, the binary file is rebuilt at startup.
+ */
+@Component
+@Slf4j
+public class BreachedPasswordChecker {
+
+    private static final ThreadLocal<MessageDigest> SHA1 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        }
+    });
+
+    @Value("${app.security.breached-passwords.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.security.breached-passwords.file:}")
+    private String file;
+
+    @Value("${app.security.breached-passwords.source:}")
+    private String source;
+
+    // 10 bytes = 80 bits; the chance of a false match is negligible even for a billion entries
+    @Value("${app.security.breached-passwords.prefix-bytes:10}")
+    private int prefixBytes;
+
+    private final MeterRegistry meterRegistry;
+    private final Counter rejections;
+    private volatile BreachedPasswordFile breachedPasswords;
+
+    public BreachedPasswordChecker(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.rejections = Counter.builder("password.breached.rejected")
+                .description("Passwords rejected because they appear in the breached password list")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void load() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        if (!StringUtils.hasText(file)) {
+            throw new IllegalStateException("app.security.breached-passwords.file is required when the check is enabled");
+        }
+        Path binary = Path.of(file);
+        if (StringUtils.hasText(source)) {
+            Path text = Path.of(source);
+            if (!Files.exists(binary) || Files.getLastModifiedTime(binary).compareTo(Files.getLastModifiedTime(text)) < 0) {
+                long started = System.nanoTime();
+                long records = BreachedPasswordFile.build(text, binary, prefixBytes);
+                log.info("Built breached password file {} with {} entries in {} ms",
+                        binary, records, (System.nanoTime() - started) / 1_000_000);
+            }
+        }
+
+        breachedPasswords = BreachedPasswordFile.open(binary);
+        Gauge.builder("password.breached.entries", breachedPasswords, BreachedPasswordFile::size)
+                .description("Entries in the mapped breached password list")
+                .register(meterRegistry);
+        log.info("Loaded {} breached password hashes ({}-byte prefixes)",
+                breachedPasswords.size(), breachedPasswords.prefixBytes());
+    }
+
+    public boolean isBreached(String rawPassword) {
+        BreachedPasswordFile list = breachedPasswords;
+        if (list == null || rawPassword == null) {
+            return false;
+        }
+        byte[] sha1 = SHA1.get().digest(rawPassword.getBytes(StandardCharsets.UTF_8));
+        return list.contains(sha1);
+    }
+
+    public void checkNotBreached(String rawPassword) {
+        if (isBreached(rawPassword)) {
+            rejections.increment();
+            throw new IllegalArgumentException("This password has appeared in a data breach. Please choose a different password");
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.juahaki.juahaki.security.password;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Sorted, fixed-width SHA-1 prefixes in a flat file, mapped read-only and searched in place.
+ * <p>
+ * Layout: an 8-byte header ({@code JHBP}, format version, prefix width, two reserved bytes)
+ * followed by the records in ascending unsigned order with duplicates removed. The file is
+ * mapped in chunks that each hold a whole number of records, so lists larger than the 2 GB
+ * limit of a single {@link MappedByteBuffer} work and no record straddles two chunks.
+ */
+final class BreachedPasswordFile {
+
+    static final int SHA1_LENGTH = 20;
+
+    private static final byte[] MAGIC = {'J', 'H', 'B', 'P'};
+    private static final byte FORMAT_VERSION = 1;
+    private static final int HEADER_LENGTH = 8;
+
+    private final MappedByteBuffer[] chunks;
+    private final int prefixBytes;
+    private final long recordsPerChunk;
+    private final long recordCount;
+
+    private BreachedPasswordFile(MappedByteBuffer[] chunks, int prefixBytes, long recordsPerChunk, long recordCount) {
+        this.chunks = chunks;
+        this.prefixBytes = prefixBytes;
+        this.recordsPerChunk = recordsPerChunk;
+        this.recordCount = recordCount;
+    }
+
+    static BreachedPasswordFile open(Path file) throws IOException {
+        return open(file, Integer.MAX_VALUE);
+    }
+
+    static BreachedPasswordFile open(Path file, int maxChunkBytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_LENGTH) {
+                throw new IOException("Breached password file is truncated: " + file);
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+            channel.read(header, 0);
+            byte[] magic = Arrays.copyOf(header.array(), MAGIC.length);
+            if (!Arrays.equals(magic, MAGIC) || header.get(4) != FORMAT_VERSION) {
+                throw new IOException("Not a breached password file: " + file);
+            }
+            int prefixBytes = header.get(5);
+            if (prefixBytes < 1 || prefixBytes > SHA1_LENGTH || (size - HEADER_LENGTH) % prefixBytes != 0) {
+                throw new IOException("Corrupt breached password file: " + file);
+            }
+
+            long recordCount = (size - HEADER_LENGTH) / prefixBytes;
+            long recordsPerChunk = Math.max(1, maxChunkBytes / prefixBytes);
+            int chunkCount = (int) ((recordCount + recordsPerChunk - 1) / recordsPerChunk);
+            MappedByteBuffer[] chunks = new MappedByteBuffer[chunkCount];
+            for (int i = 0; i < chunkCount; i++) {
+                long firstRecord = i * recordsPerChunk;
+                long records = Math.min(recordsPerChunk, recordCount - firstRecord);
+                // The mapping stays valid after the channel is closed
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        HEADER_LENGTH + firstRecord * prefixBytes, records * prefixBytes);
+            }
+            return new BreachedPasswordFile(chunks, prefixBytes, recordsPerChunk, recordCount);
+        }
+    }
+
+    long size() {
+        return recordCount;
+    }
+
+    int prefixBytes() {
+        return prefixBytes;
+    }
+
+    /**
+     * Binary search for the first {@link #prefixBytes()} bytes of {@code sha1}.
+     */
+    boolean contains(byte[] sha1) {
+        long low = 0;
+        long high = recordCount - 1;
+        while (low <= high) {
+            long mid = (low + high) >>> 1;
+            int cmp = compareRecord(mid, sha1);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int compareRecord(long record, byte[] sha1) {
+        MappedByteBuffer chunk = chunks[(int) (record / recordsPerChunk)];
+        int offset = (int) (record % recordsPerChunk) * prefixBytes;
+        for (int i = 0; i < prefixBytes; i++) {
+            int cmp = Integer.compare(chunk.get(offset + i) & 0xff, sha1[i] & 0xff);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Converts a text list with one upper- or lower-case SHA-1 hex digest per line, optionally
+     * followed by {@code :count} as in the public breach corpus downloads, into the binary
+     * format. The input must already be sorted; it is streamed, so its size is not bounded
+     * by heap. The result is written to a sibling temp file and moved into place.
+     *
+     * @return the number of records written
+     */
+    static long build(Path source, Path target, int prefixBytes) throws IOException {
+        if (prefixBytes < 1 || prefixBytes > SHA1_LENGTH) {
+            throw new IllegalArgumentException("Prefix width must be between 1 and " + SHA1_LENGTH + " bytes");
+        }
+        Path parent = target.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, target.getFileName().toString(), ".tmp");
+
+        long written = 0;
+        try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.US_ASCII);
+             OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16)) {
+            out.write(MAGIC);
+            out.write(new byte[]{FORMAT_VERSION, (byte) prefixBytes, 0, 0});
+
+            byte[] previous = null;
+            byte[] current = new byte[prefixBytes];
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                parsePrefix(line, current, lineNumber);
+                if (previous != null) {
+                    int cmp = Arrays.compareUnsigned(previous, current);
+                    if (cmp > 0) {
+                        throw new IOException("Source list is not sorted at line " + lineNumber);
+                    }
+                    if (cmp == 0) {
+                        continue;
+                    }
+                } else {
+                    previous = new byte[prefixBytes];
+                }
+                out.write(current);
+                System.arraycopy(current, 0, previous, 0, prefixBytes);
+                written++;
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return written;
+    }
+
+    private static void parsePrefix(String line, byte[] into, long lineNumber) throws IOException {
+        if (line.length() < into.length * 2) {
+            throw new IOException("Malformed SHA-1 at line " + lineNumber);
+        }
+        for (int i = 0; i < into.length; i++) {
+            int high = Character.digit(line.charAt(2 * i), 16);
+            int low = Character.digit(line.charAt(2 * i + 1), 16);
+            if (high < 0 || low < 0) {
+                throw new IOException("Malformed SHA-1 at line " + lineNumber);
+            }
+            into[i] = (byte) ((high << 4) | low);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.juahaki.juahaki.security.password;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds the delegating password encoder. New hashes use {@code app.security.password-hashing.algorithm}
+ * with a cost picked at startup by timing this machine against {@code target-ms}; existing hashes of any
+ * supported type keep matching, and unprefixed hashes are treated as legacy bcrypt.
+ * <p>
+ * PBKDF2 is not calibrated: Spring's PBKDF2 format does not store the iteration count, so it has to
+ * stay fixed for hashes to keep matching.
+ */
+@Component
+@Slf4j
+public class PasswordEncoderCalibrator {
+
+    static final String BCRYPT = "bcrypt";
+    static final String ARGON2 = "argon2";
+    static final String PBKDF2 = "pbkdf2";
+
+    // Never go below the strength existing hashes were created with
+    private static final int MIN_BCRYPT_STRENGTH = 10;
+    private static final int MAX_BCRYPT_STRENGTH = 15;
+    private static final int MIN_ARGON2_ITERATIONS = 2;
+    private static final int MAX_ARGON2_ITERATIONS = 10;
+    private static final String SAMPLE_PASSWORD = "calibration-sample-password";
+
+    @Value("${app.security.password-hashing.algorithm:bcrypt}")
+    private String algorithm;
+
+    @Value("${app.security.password-hashing.calibrate:true}")
+    private boolean calibrate;
+
+    @Value("${app.security.password-hashing.target-ms:250}")
+    private long targetMs;
+
+    @Value("${app.security.password-hashing.argon2-memory-kib:19456}")
+    private int argon2MemoryKib;
+
+    @Value("${app.security.password-hashing.pbkdf2-iterations:600000}")
+    private int pbkdf2Iterations;
+
+    public DelegatingPasswordEncoder build() {
+        if (!Set.of(BCRYPT, ARGON2, PBKDF2).contains(algorithm)) {
+            throw new IllegalStateException("Unsupported app.security.password-hashing.algorithm: " + algorithm);
+        }
+
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(
+                BCRYPT.equals(algorithm) ? bcryptStrength() : MIN_BCRYPT_STRENGTH);
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put(BCRYPT, bcrypt);
+        encoders.put(ARGON2, argon2(ARGON2.equals(algorithm) ? argon2Iterations() : MIN_ARGON2_ITERATIONS));
+        encoders.put(PBKDF2, new Pbkdf2PasswordEncoder("", 16, pbkdf2Iterations,
+                Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256));
+
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(algorithm, encoders);
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
+    }
+
+    /**
+     * Each bcrypt strength step doubles the cost, so one measurement at the floor is enough.
+     */
+    private int bcryptStrength() {
+        if (!calibrate) {
+            return MIN_BCRYPT_STRENGTH;
+        }
+        long elapsedMs = medianMillis(new BCryptPasswordEncoder(MIN_BCRYPT_STRENGTH));
+        int strength = MIN_BCRYPT_STRENGTH;
+        while (strength < MAX_BCRYPT_STRENGTH && elapsedMs * 2 <= targetMs) {
+            strength++;
+            elapsedMs *= 2;
+        }
+        log.info("Password hashing: bcrypt strength {} (~{} ms, target {} ms)", strength, elapsedMs, targetMs);
+        return strength;
+    }
+
+    /**
+     * Memory is fixed by configuration; argon2 time grows linearly with iterations.
+     */
+    private int argon2Iterations() {
+        if (!calibrate) {
+            return MIN_ARGON2_ITERATIONS;
+        }
+        long perIterationMs = Math.max(1, medianMillis(argon2(1)));
+        int iterations = (int) Math.max(MIN_ARGON2_ITERATIONS,
+                Math.min(MAX_ARGON2_ITERATIONS, targetMs / perIterationMs));
+        log.info("Password hashing: argon2id {} KiB x {} iterations (~{} ms, target {} ms)",
+                argon2MemoryKib, iterations, iterations * perIterationMs, targetMs);
+        return iterations;
+    }
+
+    private Argon2PasswordEncoder argon2(int iterations) {
+        return new Argon2PasswordEncoder(16, 32, 1, argon2MemoryKib, iterations);
+    }
+
+    private static long medianMillis(PasswordEncoder encoder) {
+        // First run warms up the JIT and is discarded
+        encoder.encode(SAMPLE_PASSWORD);
+        long[] samples = new long[3];
+        for (int i = 0; i < samples.length; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            samples[i] = (System.nanoTime() - start) / 1_000_000;
+        }
+        Arrays.sort(samples);
+        return samples[1];
+    }
+}
@@ -0,0 +1,81 @@
+package com.juahaki.juahaki.security.password;
+
+import com.juahaki.juahaki.model.user.User;
+import com.juahaki.juahaki.repository.user.UserRepository;
+import com.juahaki.juahaki.security.jwt.UserDetailsServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Upgrades stored hashes that no longer match the current encoding policy, using the
+ * password the user just logged in with. Runs off the request thread; when the queue
+ * is full the upgrade is simply skipped and retried on a later login.
+ */
+@Service
+@Slf4j
+public class PasswordRehashService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final UserRepository userRepository;
+    private final UserDetailsServiceImpl userDetailsService;
+    private final MeterRegistry meterRegistry;
+
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(100),
+            runnable -> {
+                Thread thread = new Thread(runnable, "password-rehash");
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.DiscardPolicy());
+
+    public PasswordRehashService(PasswordEncoder passwordEncoder, UserRepository userRepository,
+                                 UserDetailsServiceImpl userDetailsService, MeterRegistry meterRegistry) {
+        this.passwordEncoder = passwordEncoder;
+        this.userRepository = userRepository;
+        this.userDetailsService = userDetailsService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void rehashIfNeeded(User user, String rawPassword) {
+        String storedHash = user.getPassword();
+        if (storedHash == null || rawPassword == null || !passwordEncoder.upgradeEncoding(storedHash)) {
+            return;
+        }
+        Long userId = user.getId();
+        executor.execute(() -> rehash(userId, storedHash, rawPassword));
+    }
+
+    private void rehash(Long userId, String storedHash, String rawPassword) {
+        try {
+            String upgradedHash = passwordEncoder.encode(rawPassword);
+            // Only replace the hash we verified against, never a password changed in the meantime
+            if (userRepository.updatePasswordHash(userId, storedHash, upgradedHash) == 1) {
+                userDetailsService.evictUser(userId);
+                record("upgraded");
+                log.debug("Upgraded password hash for user {}", userId);
+            } else {
+                record("stale");
+            }
+        } catch (Exception e) {
+            record("failed");
+            log.warn("Failed to upgrade password hash for user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    private void record(String result) {
+        meterRegistry.counter("password.rehash", "result", result).increment();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,117 @@
+package com.juahaki.juahaki.security.ratelimit;
+
+import com.juahaki.juahaki.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Brute-force throttling for the unauthenticated auth endpoints. Every attempt is counted
+ * against the target account and against the client IP before any hashing, database or
+ * email work is done; whichever limit is hit first rejects the request with 429.
+ * <p>
+ * State is per instance. The client IP is {@link HttpServletRequest#getRemoteAddr()}, so
+ * behind a proxy {@code server.forward-headers-strategy} must be set for it to be meaningful.
+ */
+@Component
+@Slf4j
+public class AuthRateLimiter {
+
+    private final boolean enabled;
+    private final Map<RateLimitPolicy, Limits> limits = new EnumMap<>(RateLimitPolicy.class);
+
+    public AuthRateLimiter(
+            Environment environment,
+            MeterRegistry meterRegistry,
+            @Value("${app.security.rate-limit.enabled:true}") boolean enabled,
+            @Value("${app.security.rate-limit.max-keys:100000}") long maxKeys) {
+        this.enabled = enabled;
+
+        for (RateLimitPolicy policy : RateLimitPolicy.values()) {
+            String prefix = "app.security.rate-limit." + policy.getProperty() + ".";
+            int accountLimit = environment.getProperty(prefix + "account-limit", Integer.class, policy.getDefaultAccountLimit());
+            int ipLimit = environment.getProperty(prefix + "ip-limit", Integer.class, policy.getDefaultIpLimit());
+            Duration window = environment.getProperty(prefix + "window", Duration.class, policy.getDefaultWindow());
+
+            SlidingWindowLimiter account = new SlidingWindowLimiter(accountLimit, window, maxKeys);
+            SlidingWindowLimiter ip = new SlidingWindowLimiter(ipLimit, window, maxKeys);
+            CaffeineCacheMetrics.monitor(meterRegistry, account.cache(), "rateLimit." + policy.getProperty() + ".account");
+            CaffeineCacheMetrics.monitor(meterRegistry, ip.cache(), "rateLimit." + policy.getProperty() + ".ip");
+
+            limits.put(policy, new Limits(account, ip,
+                    rejectionCounter(meterRegistry, policy, "account"),
+                    rejectionCounter(meterRegistry, policy, "ip")));
+        }
+    }
+
+    /**
+     * Counts one attempt for the account and the caller's IP.
+     *
+     * @throws TooManyRequestsException if either limit is exhausted
+     */
+    public void checkAttempt(RateLimitPolicy policy, String account, HttpServletRequest request) {
+        if (!enabled) {
+            return;
+        }
+        Limits policyLimits = limits.get(policy);
+        long now = System.currentTimeMillis();
+
+        String clientIp = request.getRemoteAddr();
+        if (clientIp != null) {
+            long retryAfter = policyLimits.ip.tryAcquire(clientIp, now);
+            if (retryAfter > 0) {
+                policyLimits.ipRejections.increment();
+                log.warn("Rate limit {} exceeded for IP {}", policy, clientIp);
+                throw new TooManyRequestsException("Too many attempts. Please try again later.", retryAfter);
+            }
+        }
+
+        String accountKey = normalize(account);
+        if (accountKey != null) {
+            long retryAfter = policyLimits.account.tryAcquire(accountKey, now);
+            if (retryAfter > 0) {
+                policyLimits.accountRejections.increment();
+                log.warn("Rate limit {} exceeded for account {}", policy, accountKey);
+                throw new TooManyRequestsException("Too many attempts. Please try again later.", retryAfter);
+            }
+        }
+    }
+
+    /**
+     * Clears the account's counter after a successful attempt so a user who finally gets it
+     * right is not held back by their earlier typos. The IP counter is left alone.
+     */
+    public void recordSuccess(RateLimitPolicy policy, String account) {
+        String accountKey = normalize(account);
+        if (enabled && accountKey != null) {
+            limits.get(policy).account.reset(accountKey);
+        }
+    }
+
+    private static String normalize(String account) {
+        return StringUtils.hasText(account) ? account.trim().toLowerCase(Locale.ROOT) : null;
+    }
+
+    private static Counter rejectionCounter(MeterRegistry meterRegistry, RateLimitPolicy policy, String scope) {
+        return Counter.builder("auth.rate_limit.rejected")
+                .description("Auth attempts rejected by the brute-force limiter")
+                .tag("policy", policy.getProperty())
+                .tag("scope", scope)
+                .register(meterRegistry);
+    }
+
+    private record Limits(SlidingWindowLimiter account, SlidingWindowLimiter ip,
+                          Counter accountRejections, Counter ipRejections) {
+    }
+}
@@ -0,0 +1,26 @@
+package com.juahaki.juahaki.security.ratelimit;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Duration;
+
+/**
+ * Throttled auth operations with their default limits. Each can be overridden under
+ * {@code app.security.rate-limit.<property>} with {@code account-limit}, {@code ip-limit}
+ * and {@code window}.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum RateLimitPolicy {
+    LOGIN("login", 10, 100, Duration.ofMinutes(15)),
+    VERIFY_EMAIL("verify-email", 10, 50, Duration.ofMinutes(15)),
+    RESEND_VERIFICATION("resend-verification", 5, 20, Duration.ofHours(1)),
+    PASSWORD_RESET_INITIATE("password-reset-initiate", 5, 20, Duration.ofHours(1)),
+    PASSWORD_RESET_CONFIRM("password-reset-confirm", 10, 50, Duration.ofMinutes(15));
+
+    private final String property;
+    private final int defaultAccountLimit;
+    private final int defaultIpLimit;
+    private final Duration defaultWindow;
+}
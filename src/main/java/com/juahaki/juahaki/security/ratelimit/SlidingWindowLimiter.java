@@ -0,0 +1,103 @@
+package com.juahaki.juahaki.security.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sliding-window counter per key: the count of the current fixed window plus the previous
+ * window's count weighted by how much of it still overlaps the sliding window. Each key's
+ * state is packed into a single {@link AtomicLong} and updated with CAS, so concurrent
+ * attempts on the same key never block; keys live in a size-bounded Caffeine map that
+ * drops them once they have been idle for two windows.
+ */
+final class SlidingWindowLimiter {
+
+    private static final int COUNT_BITS = 20;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final long WINDOW_MASK = (1L << (64 - 2 * COUNT_BITS)) - 1;
+
+    private final int limit;
+    private final long windowMillis;
+    private final Cache<String, AtomicLong> windows;
+
+    SlidingWindowLimiter(int limit, Duration window, long maxKeys) {
+        this.limit = limit;
+        this.windowMillis = window.toMillis();
+        this.windows = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(window.multipliedBy(2))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Counts one attempt for {@code key}.
+     *
+     * @return 0 if the attempt is allowed, otherwise the number of seconds until it would be
+     */
+    long tryAcquire(String key, long nowMillis) {
+        AtomicLong state = windows.get(key, k -> new AtomicLong());
+        long window = nowMillis / windowMillis;
+        double previousWeight = 1.0 - (double) (nowMillis % windowMillis) / windowMillis;
+
+        while (true) {
+            long packed = state.get();
+            long current = currentCount(packed, window);
+            long previous = previousCount(packed, window);
+
+            if (previous * previousWeight + current >= limit) {
+                return retryAfterSeconds(nowMillis, current, previous);
+            }
+            long next = pack(window, previous, Math.min(current + 1, COUNT_MASK));
+            if (state.compareAndSet(packed, next)) {
+                return 0;
+            }
+        }
+    }
+
+    void reset(String key) {
+        windows.invalidate(key);
+    }
+
+    Cache<String, AtomicLong> cache() {
+        return windows;
+    }
+
+    private long retryAfterSeconds(long nowMillis, long current, long previous) {
+        long windowEnd = (nowMillis / windowMillis + 1) * windowMillis;
+        long freeAt;
+        if (current >= limit) {
+            // The current count becomes the previous window and has to decay below the limit
+            freeAt = windowEnd + (long) ((1.0 - (double) limit / current) * windowMillis);
+        } else {
+            // Wait until enough of the previous window has slid out of the overlap
+            freeAt = windowEnd - (long) ((double) (limit - current) / previous * windowMillis);
+        }
+        // At freeAt the weighted count equals the limit; the attempt is allowed one millisecond later
+        return Math.max(1, (freeAt + 1 - nowMillis + 999) / 1000);
+    }
+
+    private static long currentCount(long packed, long window) {
+        return windowOf(packed) == (window & WINDOW_MASK) ? packed & COUNT_MASK : 0;
+    }
+
+    private static long previousCount(long packed, long window) {
+        long stored = windowOf(packed);
+        if (stored == (window & WINDOW_MASK)) {
+            return (packed >>> COUNT_BITS) & COUNT_MASK;
+        }
+        // The stored current window has become the previous one
+        return stored == ((window - 1) & WINDOW_MASK) ? packed & COUNT_MASK : 0;
+    }
+
+    private static long windowOf(long packed) {
+        return packed >>> (2 * COUNT_BITS);
+    }
+
+    private static long pack(long window, long previous, long current) {
+        return ((window & WINDOW_MASK) << (2 * COUNT_BITS)) | (previous << COUNT_BITS) | current;
+    }
+}
@@ -9,10 +9,12 @@ import com.juahaki.juahaki.exception.CustomException;
 import com.juahaki.juahaki.mapper.AdminUserMapper;
 import com.juahaki.juahaki.model.user.User;
 import com.juahaki.juahaki.repository.user.UserRepository;
+import com.juahaki.juahaki.security.jwt.CurrentUser;
+import com.juahaki.juahaki.security.jwt.UserDetailsServiceImpl;
 import com.juahaki.juahaki.service.email.IEmailService;
-import com.juahaki.juahaki.util.jwt.JwtHelperService;
+import com.juahaki.juahaki.service.token.ITokenVersionService;
+import com.juahaki.juahaki.service.user.IUserAvailabilityService;
 import jakarta.persistence.criteria.Predicate;
-import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -32,15 +34,15 @@ import java.util.List;
 public class AdminUserManagementService implements IAdminUserManagementService {
 
     private final UserRepository userRepository;
-    private final JwtHelperService jwtHelperService;
     private final PasswordEncoder passwordEncoder;
     private final IEmailService emailService;
     private final AdminUserMapper adminUserMapper;
+    private final UserDetailsServiceImpl userDetailsService;
+    private final ITokenVersionService tokenVersionService;
+    private final IUserAvailabilityService userAvailabilityService;
 
     @Override
-    public AdminUserPageResponse getAllUsers(HttpServletRequest request, UserFilterRequest filterRequest, Pageable pageable) {
-        validateAdminAccess(request);
-
+    public AdminUserPageResponse getAllUsers(UserFilterRequest filterRequest, Pageable pageable) {
         Specification<User> spec = createUserSpecification(filterRequest);
         Page<User> users = userRepository.findAll(spec, pageable);
 
@@ -48,9 +50,7 @@ public class AdminUserManagementService implements IAdminUserManagementService {
     }
 
     @Override
-    public AdminUserResponse getUserById(HttpServletRequest request, Long userId) {
-        validateAdminAccess(request);
-
+    public AdminUserResponse getUserById(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new CustomException("User not found with ID: " + userId));
 
@@ -59,37 +59,38 @@ public class AdminUserManagementService implements IAdminUserManagementService {
 
     @Override
     @Transactional
-    public void deleteUser(HttpServletRequest request, Long userId) {
-        validateAdminAccess(request);
-
+    public void deleteUser(CurrentUser currentUser, Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new CustomException("User not found with ID: " + userId));
 
         // Prevent admin from deleting themselves
-        Long currentUserId = jwtHelperService.getCurrentUserIdFromRequest(request);
+        Long currentUserId = currentUser.getId();
         if (currentUserId.equals(userId)) {
             throw new CustomException("Cannot delete your own account");
         }
 
         userRepository.deleteById(userId);
+        userDetailsService.evictUser(userId);
+        tokenVersionService.invalidate(List.of(userId));
+        userAvailabilityService.recordRemoved(1);
         log.info("Admin {} deleted user with ID: {}", currentUserId, userId);
     }
 
     @Override
     @Transactional
-    public AdminUserResponse lockUser(HttpServletRequest request, Long userId) {
-        validateAdminAccess(request);
-
+    public AdminUserResponse lockUser(CurrentUser currentUser, Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new CustomException("User not found with ID: " + userId));
 
-        Long currentUserId = jwtHelperService.getCurrentUserIdFromRequest(request);
+        Long currentUserId = currentUser.getId();
         if (currentUserId.equals(userId)) {
             throw new CustomException("Cannot lock your own account");
         }
 
         user.setAccountNonLocked(false);
+        tokenVersionService.bump(user);
         User savedUser = userRepository.save(user);
+        userDetailsService.evictUser(userId);
 
         try {
             emailService.sendAccountLockedNotification(user.getEmail(), user.getFirstName());
@@ -104,9 +105,7 @@ public class AdminUserManagementService implements IAdminUserManagementService {
 
     @Override
     @Transactional
-    public AdminUserResponse unlockUser(HttpServletRequest request, Long userId) {
-        validateAdminAccess(request);
-
+    public AdminUserResponse unlockUser(CurrentUser currentUser, Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new CustomException("User not found with ID: " + userId));
 
@@ -116,6 +115,7 @@ public class AdminUserManagementService implements IAdminUserManagementService {
 
         user.setAccountNonLocked(true);
         User savedUser = userRepository.save(user);
+        userDetailsService.evictUser(userId);
 
         try {
             emailService.sendAccountUnlockedNotification(user.getEmail(), user.getFirstName());
@@ -124,20 +124,18 @@ public class AdminUserManagementService implements IAdminUserManagementService {
         }
 
         log.info("Admin {} unlocked user with ID: {}",
-                jwtHelperService.getCurrentUserIdFromRequest(request), userId);
+                currentUser.getId(), userId);
 
         return adminUserMapper.mapToAdminUserResponse(savedUser);
     }
 
     @Override
     @Transactional
-    public AdminUserResponse changeUserRole(HttpServletRequest request, Long userId, Role newRole) {
-        validateAdminAccess(request);
-
+    public AdminUserResponse changeUserRole(CurrentUser currentUser, Long userId, Role newRole) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new CustomException("User not found with ID: " + userId));
 
-        Long currentUserId = jwtHelperService.getCurrentUserIdFromRequest(request);
+        Long currentUserId = currentUser.getId();
         if (currentUserId.equals(userId)) {
             throw new CustomException("Cannot change your own role");
         }
@@ -149,7 +147,9 @@ public class AdminUserManagementService implements IAdminUserManagementService {
 
         Role oldRole = user.getRole();
         user.setRole(newRole);
+        tokenVersionService.bump(user);
         User savedUser = userRepository.save(user);
+        userDetailsService.evictUser(userId);
 
         try {
             emailService.sendRoleChangeNotification(user.getEmail(), user.getFirstName(), oldRole, newRole);
@@ -164,9 +164,7 @@ public class AdminUserManagementService implements IAdminUserManagementService {
     }
 
     @Override
-    public UserStatsResponse getUserStatistics(HttpServletRequest request) {
-        validateAdminAccess(request);
-
+    public UserStatsResponse getUserStatistics() {
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime startOfDay = now.toLocalDate().atStartOfDay();
         LocalDateTime startOfWeek = now.minusDays(now.getDayOfWeek().getValue() - 1).toLocalDate().atStartOfDay();
@@ -189,9 +187,7 @@ public class AdminUserManagementService implements IAdminUserManagementService {
     }
 
     @Override
-    public List<AdminUserResponse> searchUsers(HttpServletRequest request, String searchTerm) {
-        validateAdminAccess(request);
-
+    public List<AdminUserResponse> searchUsers(String searchTerm) {
         if (!StringUtils.hasText(searchTerm)) {
             return new ArrayList<>();
         }
@@ -201,17 +197,13 @@ public class AdminUserManagementService implements IAdminUserManagementService {
     }
 
     @Override
-    public List<AdminUserResponse> getRecentlyRegisteredUsers(HttpServletRequest request, int limit) {
-        validateAdminAccess(request);
-
+    public List<AdminUserResponse> getRecentlyRegisteredUsers(int limit) {
         List<User> users = userRepository.findRecentlyRegisteredUsers(limit);
         return adminUserMapper.mapToAdminUserResponseList(users);
     }
 
     @Override
-    public List<AdminUserResponse> getInactiveUsers(HttpServletRequest request, int daysSinceLastActivity) {
-        validateAdminAccess(request);
-
+    public List<AdminUserResponse> getInactiveUsers(int daysSinceLastActivity) {
         LocalDateTime cutoffDate = LocalDateTime.now().minusDays(daysSinceLastActivity);
         List<User> users = userRepository.findInactiveUsers(cutoffDate);
         return adminUserMapper.mapToAdminUserResponseList(users);
@@ -219,10 +211,8 @@ public class AdminUserManagementService implements IAdminUserManagementService {
 
     @Override
     @Transactional
-    public void bulkDeleteUsers(HttpServletRequest request, List<Long> userIds) {
-        validateAdminAccess(request);
-
-        Long currentUserId = jwtHelperService.getCurrentUserIdFromRequest(request);
+    public void bulkDeleteUsers(CurrentUser currentUser, List<Long> userIds) {
+        Long currentUserId = currentUser.getId();
 
         // Remove current user from the list to prevent self-deletion
         userIds.removeIf(id -> id.equals(currentUserId));
@@ -232,14 +222,15 @@ public class AdminUserManagementService implements IAdminUserManagementService {
         }
 
         userRepository.deleteAllById(userIds);
+        userDetailsService.evictUsers(userIds);
+        tokenVersionService.invalidate(userIds);
+        userAvailabilityService.recordRemoved(userIds.size());
         log.info("Admin {} bulk deleted {} users", currentUserId, userIds.size());
     }
 
     @Override
     @Transactional
-    public void bulkActivateUsers(HttpServletRequest request, List<Long> userIds) {
-        validateAdminAccess(request);
-
+    public void bulkActivateUsers(CurrentUser currentUser, List<Long> userIds) {
         if (userIds.isEmpty()) {
             throw new CustomException("No users specified for activation");
         }
@@ -247,17 +238,17 @@ public class AdminUserManagementService implements IAdminUserManagementService {
         List<User> users = userRepository.findAllById(userIds);
         users.forEach(user -> user.setEnabled(true));
         userRepository.saveAll(users);
+        userDetailsService.evictUsers(userIds);
+        tokenVersionService.invalidate(userIds);
 
         log.info("Admin {} bulk activated {} users",
-                jwtHelperService.getCurrentUserIdFromRequest(request), users.size());
+                currentUser.getId(), users.size());
     }
 
     @Override
     @Transactional
-    public void bulkDeactivateUsers(HttpServletRequest request, List<Long> userIds) {
-        validateAdminAccess(request);
-
-        Long currentUserId = jwtHelperService.getCurrentUserIdFromRequest(request);
+    public void bulkDeactivateUsers(CurrentUser currentUser, List<Long> userIds) {
+        Long currentUserId = currentUser.getId();
 
         // Remove current user from the list to prevent self-deactivation
         userIds.removeIf(id -> id.equals(currentUserId));
@@ -268,17 +259,14 @@ public class AdminUserManagementService implements IAdminUserManagementService {
 
         List<User> users = userRepository.findAllById(userIds);
         users.forEach(user -> user.setEnabled(false));
+        tokenVersionService.bump(users);
         userRepository.saveAll(users);
+        userDetailsService.evictUsers(userIds);
+        tokenVersionService.invalidate(userIds);
 
         log.info("Admin {} bulk deactivated {} users", currentUserId, users.size());
     }
 
-    private void validateAdminAccess(HttpServletRequest request) {
-        if (!jwtHelperService.isAdmin(request)) {
-            throw new CustomException("Access denied. Admin privileges required.");
-        }
-    }
-
     private Specification<User> createUserSpecification(UserFilterRequest filterRequest) {
         return (root, query, criteriaBuilder) -> {
             List<Predicate> predicates = new ArrayList<>();
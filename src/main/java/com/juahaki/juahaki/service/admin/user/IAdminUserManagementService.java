@@ -6,7 +6,7 @@ import com.juahaki.juahaki.dto.admin.user.AdminUserResponse;
 import com.juahaki.juahaki.dto.admin.user.UserFilterRequest;
 import com.juahaki.juahaki.dto.admin.user.UserStatsResponse;
 import com.juahaki.juahaki.enums.Role;
-import jakarta.servlet.http.HttpServletRequest;
+import com.juahaki.juahaki.security.jwt.CurrentUser;
 import org.springframework.data.domain.Pageable;
 
 import java.util.List;
@@ -14,40 +14,40 @@ import java.util.List;
 public interface IAdminUserManagementService {
 
 
-    AdminUserPageResponse getAllUsers(HttpServletRequest request, UserFilterRequest filterRequest, Pageable pageable);
+    AdminUserPageResponse getAllUsers(UserFilterRequest filterRequest, Pageable pageable);
 
 
-    AdminUserResponse getUserById(HttpServletRequest request, Long userId);
+    AdminUserResponse getUserById(Long userId);
 
 
-    void deleteUser(HttpServletRequest request, Long userId);
+    void deleteUser(CurrentUser currentUser, Long userId);
 
 
-    AdminUserResponse lockUser(HttpServletRequest request, Long userId);
+    AdminUserResponse lockUser(CurrentUser currentUser, Long userId);
 
 
-    AdminUserResponse unlockUser(HttpServletRequest request, Long userId);
+    AdminUserResponse unlockUser(CurrentUser currentUser, Long userId);
 
 
-    AdminUserResponse changeUserRole(HttpServletRequest request, Long userId, Role newRole);
+    AdminUserResponse changeUserRole(CurrentUser currentUser, Long userId, Role newRole);
 
 
 
-    UserStatsResponse getUserStatistics(HttpServletRequest request);
+    UserStatsResponse getUserStatistics();
 
 
-    List<AdminUserResponse> searchUsers(HttpServletRequest request, String searchTerm);
+    List<AdminUserResponse> searchUsers(String searchTerm);
 
 
-    List<AdminUserResponse> getRecentlyRegisteredUsers(HttpServletRequest request, int limit);
+    List<AdminUserResponse> getRecentlyRegisteredUsers(int limit);
 
 
-    List<AdminUserResponse> getInactiveUsers(HttpServletRequest request, int daysSinceLastActivity);
+    List<AdminUserResponse> getInactiveUsers(int daysSinceLastActivity);
 
 
-    void bulkDeleteUsers(HttpServletRequest request, List<Long> userIds);
+    void bulkDeleteUsers(CurrentUser currentUser, List<Long> userIds);
 
-    void bulkActivateUsers(HttpServletRequest request, List<Long> userIds);
+    void bulkActivateUsers(CurrentUser currentUser, List<Long> userIds);
 
-    void bulkDeactivateUsers(HttpServletRequest request, List<Long> userIds);
+    void bulkDeactivateUsers(CurrentUser currentUser, List<Long> userIds);
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.juahaki.juahaki.service.admin.user;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public interface IUserImportService {
+
+    /**
+     * Import users from {@code input} and write one NDJSON result line per row to {@code report},
+     * followed by a summary line
+     *
+     * @param verified create the accounts enabled and email-verified instead of awaiting verification
+     */
+    void importUsers(InputStream input, UserImportFormat format, boolean verified, OutputStream report) throws IOException;
+}
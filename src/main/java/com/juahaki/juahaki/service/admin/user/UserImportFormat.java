@@ -0,0 +1,21 @@
+package com.juahaki.juahaki.service.admin.user;
+
+import org.springframework.http.MediaType;
+
+public enum UserImportFormat {
+    CSV,
+    NDJSON;
+
+    public static UserImportFormat fromContentType(String contentType) {
+        if (contentType != null) {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            if ("csv".equalsIgnoreCase(mediaType.getSubtype())) {
+                return CSV;
+            }
+            if ("x-ndjson".equalsIgnoreCase(mediaType.getSubtype()) || "ndjson".equalsIgnoreCase(mediaType.getSubtype())) {
+                return NDJSON;
+            }
+        }
+        throw new IllegalArgumentException("Import must be sent as text/csv or application/x-ndjson");
+    }
+}
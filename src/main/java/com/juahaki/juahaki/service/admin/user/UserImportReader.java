@@ -0,0 +1,139 @@
+package com.juahaki.juahaki.service.admin.user;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.juahaki.juahaki.dto.admin.user.UserImportRow;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads import rows one line at a time, so only the current record is ever in memory.
+ * CSV needs a header naming the columns (camelCase or snake_case); quoted fields may contain
+ * commas and doubled quotes but not line breaks. NDJSON is one JSON object per line.
+ */
+final class UserImportReader {
+
+    private static final List<String> COLUMNS =
+            List.of("firstname", "lastname", "username", "email", "password", "phonenumber");
+
+    private final BufferedReader reader;
+    private final UserImportFormat format;
+    private final ObjectMapper objectMapper;
+    private int[] columnIndexes;
+    private long lineNumber;
+
+    UserImportReader(BufferedReader reader, UserImportFormat format, ObjectMapper objectMapper) {
+        this.reader = reader;
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @return the next record, or null at the end of the input
+     */
+    Record next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            lineNumber++;
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+
+        if (format == UserImportFormat.NDJSON) {
+            try {
+                return new Record(lineNumber, objectMapper.readValue(line, UserImportRow.class), null);
+            } catch (JsonProcessingException e) {
+                return new Record(lineNumber, null, "Malformed JSON: " + e.getOriginalMessage());
+            }
+        }
+
+        if (columnIndexes == null) {
+            readHeader(line);
+            return next();
+        }
+        List<String> fields = splitCsv(line);
+        if (fields == null) {
+            return new Record(lineNumber, null, "Malformed CSV: unterminated quote");
+        }
+        return new Record(lineNumber, UserImportRow.builder()
+                .firstName(field(fields, 0))
+                .lastName(field(fields, 1))
+                .username(field(fields, 2))
+                .email(field(fields, 3))
+                .password(field(fields, 4))
+                .phoneNumber(field(fields, 5))
+                .build(), null);
+    }
+
+    private void readHeader(String line) {
+        List<String> header = splitCsv(line.startsWith("\uFEFF") ? line.substring(1) : line);
+        if (header == null) {
+            throw new IllegalArgumentException("Malformed CSV header");
+        }
+        columnIndexes = new int[COLUMNS.size()];
+        for (int i = 0; i < COLUMNS.size(); i++) {
+            columnIndexes[i] = -1;
+        }
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).trim().replace("_", "").toLowerCase(Locale.ROOT);
+            int column = COLUMNS.indexOf(name);
+            if (column >= 0) {
+                columnIndexes[column] = i;
+            }
+        }
+        for (int i = 0; i < 5; i++) {
+            if (columnIndexes[i] < 0) {
+                throw new IllegalArgumentException("CSV header is missing the " + COLUMNS.get(i) + " column");
+            }
+        }
+    }
+
+    private String field(List<String> fields, int column) {
+        int index = columnIndexes[column];
+        if (index < 0 || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index);
+        return value.isEmpty() ? null : value;
+    }
+
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    record Record(long line, UserImportRow row, String error) {
+    }
+}
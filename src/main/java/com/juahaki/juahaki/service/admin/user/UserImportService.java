@@ -0,0 +1,311 @@
+package com.juahaki.juahaki.service.admin.user;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.juahaki.juahaki.dto.admin.user.UserImportResult;
+import com.juahaki.juahaki.dto.admin.user.UserImportRow;
+import com.juahaki.juahaki.enums.AuthProvider;
+import com.juahaki.juahaki.enums.Role;
+import com.juahaki.juahaki.model.user.User;
+import com.juahaki.juahaki.security.password.BoundedPasswordEncoder;
+import com.juahaki.juahaki.security.password.BreachedPasswordChecker;
+import com.juahaki.juahaki.service.user.IUserAvailabilityService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * Bulk user import for onboarding whole organisations. Rows are streamed in, validated one at
+ * a time and collected into chunks; each chunk has its passwords hashed on a dedicated
+ * fork-join pool and is written with one {@code INSERT ... SELECT FROM unnest(...)} in its own
+ * transaction. {@code ON CONFLICT DO NOTHING RETURNING username} tells which rows went in, so
+ * the report does not depend on the update counts the driver chooses to return. Only the
+ * current chunk is held in memory, and the per-row report is flushed after every chunk so the
+ * caller sees progress while the upload is still running.
+ * <p>
+ * Hashing bypasses the request-facing bounded pool on purpose: the import pool has its own,
+ * smaller parallelism so a large import does not queue ahead of interactive logins.
+ */
+@Service
+@Slf4j
+public class UserImportService implements IUserImportService, DisposableBean {
+
+    // One statement per chunk; RETURNING names the rows actually inserted, whatever the driver reports as counts
+    static final String INSERT_SQL = """
+            INSERT INTO users (first_name, last_name, username, email, password, phone_number,
+                               provider, role, email_verified, is_account_non_expired, is_account_non_locked,
+                               is_credentials_non_expired, is_enabled, token_version, created_at, updated_at)
+            SELECT r.first_name, r.last_name, r.username, r.email, r.password, r.phone_number,
+                   ?, ?, ?, true, true, true, ?, 0, ?, ?
+            FROM unnest(CAST(? AS text[]), CAST(? AS text[]), CAST(? AS text[]),
+                        CAST(? AS text[]), CAST(? AS text[]), CAST(? AS text[]))
+                 AS r(first_name, last_name, username, email, password, phone_number)
+            ON CONFLICT DO NOTHING
+            RETURNING username""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate chunkTransaction;
+    private final PasswordEncoder passwordEncoder;
+    private final BreachedPasswordChecker breachedPasswordChecker;
+    private final IUserAvailabilityService userAvailabilityService;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final ForkJoinPool hashingPool;
+
+    @Value("${app.admin.import.chunk-size:500}")
+    private int chunkSize;
+
+    public UserImportService(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            PasswordEncoder passwordEncoder,
+            BreachedPasswordChecker breachedPasswordChecker,
+            IUserAvailabilityService userAvailabilityService,
+            Validator validator,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${app.admin.import.hashing-parallelism:0}") int hashingParallelism) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.passwordEncoder = passwordEncoder instanceof BoundedPasswordEncoder bounded
+                ? bounded.getDelegate() : passwordEncoder;
+        this.breachedPasswordChecker = breachedPasswordChecker;
+        this.userAvailabilityService = userAvailabilityService;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        // 0 = half the cores, leaving the rest for request traffic
+        this.hashingPool = new ForkJoinPool(hashingParallelism > 0
+                ? hashingParallelism : Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    @Override
+    public void importUsers(InputStream input, UserImportFormat format, boolean verified, OutputStream report) throws IOException {
+        UserImportReader reader = new UserImportReader(
+                new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)), format, objectMapper);
+        Progress progress = new Progress(report);
+        List<PendingRow> chunk = new ArrayList<>(chunkSize);
+
+        try {
+            UserImportReader.Record record;
+            while ((record = reader.next()) != null) {
+                String problem = record.error() != null ? record.error() : validate(record.row());
+                if (problem != null) {
+                    progress.failed(record.line(), record.row(), problem);
+                    continue;
+                }
+                chunk.add(new PendingRow(record.line(), normalize(record.row())));
+                if (chunk.size() >= chunkSize) {
+                    writeChunk(chunk, verified, progress);
+                    chunk.clear();
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // Unusable CSV header; the response is already streaming, so report it in-band
+            progress.failed(1, null, e.getMessage());
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(chunk, verified, progress);
+        }
+
+        progress.summary();
+        log.info("User import finished: {} imported, {} skipped, {} failed",
+                progress.imported, progress.skipped, progress.failed);
+    }
+
+    private String validate(UserImportRow row) {
+        Set<ConstraintViolation<UserImportRow>> violations = validator.validate(row);
+        if (!violations.isEmpty()) {
+            return violations.iterator().next().getMessage();
+        }
+        if (breachedPasswordChecker.isBreached(row.getPassword())) {
+            return "Password has appeared in a data breach";
+        }
+        return null;
+    }
+
+    private void writeChunk(List<PendingRow> chunk, boolean verified, Progress progress) throws IOException {
+        // Rows repeating a username or email earlier in the chunk would conflict inside the statement
+        Set<String> usernames = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        List<PendingRow> unique = new ArrayList<>(chunk.size());
+        for (PendingRow pending : chunk) {
+            pending.duplicate = !usernames.add(pending.row.getUsername()) | !emails.add(pending.row.getEmail());
+            if (!pending.duplicate) {
+                unique.add(pending);
+            }
+        }
+
+        try {
+            hashPasswords(unique);
+            Set<String> inserted = insert(unique, verified);
+            for (PendingRow pending : chunk) {
+                if (pending.duplicate) {
+                    progress.skipped(pending, "Username or email repeats an earlier row");
+                } else if (!inserted.contains(pending.row.getUsername())) {
+                    progress.skipped(pending, "Username or email already exists");
+                } else {
+                    userAvailabilityService.recordUser(User.builder()
+                            .username(pending.row.getUsername())
+                            .email(pending.row.getEmail())
+                            .build());
+                    progress.imported(pending);
+                }
+            }
+        } catch (DataAccessException e) {
+            log.error("User import chunk starting at line {} failed", chunk.get(0).line, e);
+            for (PendingRow pending : chunk) {
+                progress.failed(pending.line, pending.row, "Could not be saved; the rest of the import continues");
+            }
+        }
+        progress.flush();
+    }
+
+    private void hashPasswords(List<PendingRow> chunk) {
+        try {
+            // A parallel stream started inside the pool runs on the pool's workers
+            hashingPool.submit(() -> chunk.parallelStream()
+                    .forEach(pending -> pending.passwordHash = passwordEncoder.encode(pending.row.getPassword())))
+                    .get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing imported passwords", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Hashing imported passwords failed", e.getCause());
+        }
+    }
+
+    private Set<String> insert(List<PendingRow> chunk, boolean verified) {
+        if (chunk.isEmpty()) {
+            return Set.of();
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<String> usernames = chunkTransaction.execute(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT_SQL);
+            statement.setString(1, AuthProvider.LOCAL.name());
+            statement.setString(2, Role.USER.name());
+            statement.setBoolean(3, verified);
+            statement.setBoolean(4, verified);
+            statement.setTimestamp(5, now);
+            statement.setTimestamp(6, now);
+            statement.setArray(7, textArray(connection, chunk, pending -> pending.row.getFirstName()));
+            statement.setArray(8, textArray(connection, chunk, pending -> pending.row.getLastName()));
+            statement.setArray(9, textArray(connection, chunk, pending -> pending.row.getUsername()));
+            statement.setArray(10, textArray(connection, chunk, pending -> pending.row.getEmail()));
+            statement.setArray(11, textArray(connection, chunk, pending -> pending.passwordHash));
+            statement.setArray(12, textArray(connection, chunk, pending -> pending.row.getPhoneNumber()));
+            return statement;
+        }, (resultSet, rowNum) -> resultSet.getString(1)));
+        return new HashSet<>(usernames);
+    }
+
+    private static Array textArray(Connection connection, List<PendingRow> chunk,
+                                   Function<PendingRow, String> column) throws SQLException {
+        return connection.createArrayOf("text", chunk.stream().map(column).toArray());
+    }
+
+    private static UserImportRow normalize(UserImportRow row) {
+        row.setFirstName(row.getFirstName().trim());
+        row.setLastName(row.getLastName().trim());
+        row.setUsername(row.getUsername().trim().toLowerCase(Locale.ROOT));
+        row.setEmail(row.getEmail().trim().toLowerCase(Locale.ROOT));
+        return row;
+    }
+
+    @Override
+    public void destroy() {
+        hashingPool.shutdown();
+    }
+
+    private static final class PendingRow {
+        private final long line;
+        private final UserImportRow row;
+        private String passwordHash;
+        private boolean duplicate;
+
+        private PendingRow(long line, UserImportRow row) {
+            this.line = line;
+            this.row = row;
+        }
+    }
+
+    /**
+     * Writes the NDJSON report and keeps the running totals
+     */
+    private final class Progress {
+        private final OutputStream report;
+        private long imported;
+        private long skipped;
+        private long failed;
+
+        private Progress(OutputStream report) {
+            this.report = report;
+        }
+
+        private void imported(PendingRow pending) throws IOException {
+            imported++;
+            write(UserImportResult.builder().status(UserImportResult.IMPORTED)
+                    .line(pending.line).username(pending.row.getUsername()).build());
+        }
+
+        private void skipped(PendingRow pending, String message) throws IOException {
+            skipped++;
+            write(UserImportResult.builder().status(UserImportResult.SKIPPED)
+                    .line(pending.line).username(pending.row.getUsername()).message(message).build());
+        }
+
+        private void failed(long line, UserImportRow row, String message) throws IOException {
+            failed++;
+            write(UserImportResult.builder().status(UserImportResult.FAILED)
+                    .line(line).username(row != null ? row.getUsername() : null).message(message).build());
+        }
+
+        private void summary() throws IOException {
+            write(UserImportResult.builder().status(UserImportResult.SUMMARY)
+                    .imported(imported).skipped(skipped).failed(failed).build());
+            flush();
+            meterRegistry.counter("users.import.rows", "result", "imported").increment(imported);
+            meterRegistry.counter("users.import.rows", "result", "skipped").increment(skipped);
+            meterRegistry.counter("users.import.rows", "result", "failed").increment(failed);
+        }
+
+        private void write(UserImportResult result) throws IOException {
+            report.write(objectMapper.writeValueAsBytes(result));
+            report.write('\n');
+        }
+
+        private void flush() throws IOException {
+            report.flush();
+        }
+    }
+}
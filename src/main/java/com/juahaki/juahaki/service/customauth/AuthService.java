@@ -8,24 +8,35 @@ import com.juahaki.juahaki.dto.otp.VerifyOtpRequest;
 import com.juahaki.juahaki.dto.user.UserInfo;
 import com.juahaki.juahaki.exception.AlreadyExistsException;
 import com.juahaki.juahaki.exception.CustomException;
+import com.juahaki.juahaki.exception.ServiceBusyException;
 import com.juahaki.juahaki.mapper.UserMapper;
 import com.juahaki.juahaki.model.user.User;
 import com.juahaki.juahaki.repository.user.UserRepository;
+import com.juahaki.juahaki.security.jwt.UserDetailsServiceImpl;
+import com.juahaki.juahaki.security.password.BreachedPasswordChecker;
+import com.juahaki.juahaki.security.password.PasswordRehashService;
+import com.juahaki.juahaki.service.email.EmailDispatcher;
 import com.juahaki.juahaki.service.email.IEmailService;
 import com.juahaki.juahaki.service.otp.IOtpService;
+import com.juahaki.juahaki.service.user.IUserAvailabilityService;
 import com.juahaki.juahaki.util.jwt.JwtHelperService;
+import com.juahaki.juahaki.util.jwt.VerifiedToken;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.AccountStatusUserDetailsChecker;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetailsChecker;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 
+import java.util.List;
+import java.util.UUID;
+
 @Slf4j
 @Service
 @RequiredArgsConstructor
@@ -33,34 +44,52 @@ public class AuthService implements IAuthService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
-    private final AuthenticationManager authenticationManager;
     private final JwtHelperService jwtHelperService;
     private final IOtpService otpService;
     private final IEmailService emailService;
+    private final EmailDispatcher emailDispatcher;
     private final UserMapper userMapper;
+    private final PasswordRehashService passwordRehashService;
+    private final BreachedPasswordChecker breachedPasswordChecker;
+    private final IUserAvailabilityService userAvailabilityService;
+    private final TransactionTemplate transactionTemplate;
+    private final UserDetailsServiceImpl userDetailsService;
+
+    private final UserDetailsChecker accountStatusChecker = new AccountStatusUserDetailsChecker();
+    private volatile String dummyPasswordHash;
 
+    /**
+     * The password is hashed before the transaction starts, so the deliberately slow encode
+     * does not hold a database connection; only the inserts and the OTP run inside it.
+     */
     @Override
     public UserInfo signUp(SignUpRequest signUpRequest) {
         validateSignUpRequest(signUpRequest);
-        
-        if (userRepository.existsByUsername(signUpRequest.getUsername())) {
+        breachedPasswordChecker.checkNotBreached(signUpRequest.getPassword());
+
+        if (userAvailabilityService.isUsernameTaken(signUpRequest.getUsername())) {
             throw new AlreadyExistsException("Username already exists");
         }
-        if (userRepository.existsByEmail(signUpRequest.getEmail())) {
+        if (userAvailabilityService.isEmailTaken(signUpRequest.getEmail())) {
             throw new AlreadyExistsException("Email already exists");
         }
 
         try {
             User user = createUser(signUpRequest);
-            User savedUser = userRepository.save(user);
-            
-            sendWelcomeEmail(savedUser);
-            sendVerificationOtp(savedUser);
-            
-            return userMapper.mapToUserInfo(savedUser);
+            return transactionTemplate.execute(status -> {
+                User savedUser = userRepository.save(user);
+                userAvailabilityService.recordUser(savedUser);
+                String otpCode = otpService.createEmailVerificationOtp(savedUser);
+
+                sendSignUpEmails(savedUser, otpCode);
+
+                return userMapper.mapToUserInfo(savedUser);
+            });
         } catch (DataIntegrityViolationException e) {
             log.error("Data integrity violation during user registration", e);
             throw new AlreadyExistsException("Username or email already exists");
+        } catch (ServiceBusyException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Unexpected error during user registration", e);
             throw new CustomException("Registration failed. Please try again");
@@ -72,24 +101,20 @@ public class AuthService implements IAuthService {
         validateLoginRequest(loginRequest);
         
         try {
-            User user = findUserByUsernameOrEmail(loginRequest.getUsernameOrEmail());
-            
+            User user = findUserByUsernameOrEmail(loginRequest.getUsernameOrEmail(), loginRequest.getPassword());
+
             validateUserAccountStatus(user);
-            
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(
-                            loginRequest.getUsernameOrEmail(),
-                            loginRequest.getPassword()
-                    )
-            );
-            
-            User authenticatedUser = (User) authentication.getPrincipal();
-            return createJwtResponse(authenticatedUser);
-            
+            // Same locked/disabled/expired checks DaoAuthenticationProvider runs before the password
+            accountStatusChecker.check(user);
+            verifyPassword(user, loginRequest.getPassword());
+
+            passwordRehashService.rehashIfNeeded(user, loginRequest.getPassword());
+            return createJwtResponse(user);
+
         } catch (AuthenticationException e) {
             log.warn("Authentication failed for user: {}", loginRequest.getUsernameOrEmail());
             throw new BadCredentialsException("Invalid username/email or password");
-        } catch (CustomException e) {
+        } catch (CustomException | ServiceBusyException e) {
             throw e;
         } catch (Exception e) {
             log.error("Unexpected error during login", e);
@@ -97,18 +122,18 @@ public class AuthService implements IAuthService {
         }
     }
 
+    /**
+     * The user block comes from the cached user details, so a refresh by an active user
+     * usually costs no query; a deleted user fails here, before the token is rotated.
+     */
     @Override
     public JwtResponse refreshToken(RefreshTokenRequest refreshTokenRequest) {
         validateRefreshTokenRequest(refreshTokenRequest);
 
         try {
-            String refreshToken = refreshTokenRequest.getRefreshToken();
-            Long userId = jwtHelperService.getCurrentUserIdFromToken(refreshToken);
-
-            User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new CustomException("User not found"));
-
-            String[] tokens = jwtHelperService.refreshTokenPair(refreshToken, user);
+            VerifiedToken refreshToken = jwtHelperService.verifyRefreshToken(refreshTokenRequest.getRefreshToken());
+            User user = (User) userDetailsService.loadUserById(refreshToken.getUserId());
+            String[] tokens = jwtHelperService.refreshTokenPair(refreshToken);
 
             return JwtResponse.builder()
                     .accessToken(tokens[0])
@@ -121,6 +146,16 @@ public class AuthService implements IAuthService {
         }
     }
 
+    @Override
+    public void logout(HttpServletRequest request, RefreshTokenRequest refreshTokenRequest) {
+        String accessToken = jwtHelperService.extractTokenFromRequest(request);
+        jwtHelperService.revokeToken(accessToken);
+
+        if (refreshTokenRequest != null) {
+            jwtHelperService.revokeToken(refreshTokenRequest.getRefreshToken());
+        }
+    }
+
     @Override
     public void verifyEmailOtp(VerifyOtpRequest verifyOtpRequest) {
         validateVerifyOtpRequest(verifyOtpRequest);
@@ -237,9 +272,33 @@ public class AuthService implements IAuthService {
         }
     }
 
-    private User findUserByUsernameOrEmail(String usernameOrEmail) {
+    /**
+     * The only user read on the login path. Unknown accounts still pay for one hash
+     * check so response time does not reveal whether the account exists.
+     */
+    private User findUserByUsernameOrEmail(String usernameOrEmail, String rawPassword) {
         return userRepository.findByUsernameOrEmail(usernameOrEmail, usernameOrEmail)
-                .orElseThrow(() -> new BadCredentialsException("Invalid username/email or password"));
+                .orElseThrow(() -> {
+                    passwordEncoder.matches(rawPassword, getDummyPasswordHash());
+                    return new BadCredentialsException("Invalid username/email or password");
+                });
+    }
+
+    private void verifyPassword(User user, String rawPassword) {
+        String storedHash = user.getPassword();
+        boolean matches = passwordEncoder.matches(rawPassword, storedHash != null ? storedHash : getDummyPasswordHash());
+        if (storedHash == null || !matches) {
+            throw new BadCredentialsException("Invalid username/email or password");
+        }
+    }
+
+    private String getDummyPasswordHash() {
+        String hash = dummyPasswordHash;
+        if (hash == null) {
+            hash = passwordEncoder.encode(UUID.randomUUID().toString());
+            dummyPasswordHash = hash;
+        }
+        return hash;
     }
 
     private void validateUserAccountStatus(User user) {
@@ -252,19 +311,14 @@ public class AuthService implements IAuthService {
         }
     }
 
-    private void sendWelcomeEmail(User user) {
-        try {
-            emailService.sendWelcomeEmail(user.getEmail(), user.getFirstName());
-        } catch (Exception e) {
-            log.warn("Failed to send welcome email to user: {}", user.getEmail(), e);
-        }
-    }
-
-    private void sendVerificationOtp(User user) {
-        try {
-            otpService.generateAndSendEmailVerificationOtp(user);
-        } catch (Exception e) {
-            log.error("Failed to send email verification OTP to user: {}", user.getEmail(), e);
-        }
+    /**
+     * The user and OTP rows commit first; the emails then go out off-thread, OTP before welcome
+     */
+    private void sendSignUpEmails(User user, String otpCode) {
+        String email = user.getEmail();
+        String firstName = user.getFirstName();
+        emailDispatcher.dispatchAfterCommit(List.of(
+                new EmailDispatcher.Step("signup-otp", () -> emailService.sendSignUpOtp(email, otpCode, firstName)),
+                new EmailDispatcher.Step("welcome", () -> emailService.sendWelcomeEmail(email, firstName))));
     }
 }
\ No newline at end of file
@@ -7,6 +7,7 @@ import com.juahaki.juahaki.dto.auth.SignUpRequest;
 import com.juahaki.juahaki.dto.otp.VerifyOtpRequest;
 import com.juahaki.juahaki.dto.user.UserInfo;
 import com.juahaki.juahaki.model.user.User;
+import jakarta.servlet.http.HttpServletRequest;
 
 public interface IAuthService {
 
@@ -16,6 +17,8 @@ public interface IAuthService {
 
     JwtResponse refreshToken(RefreshTokenRequest refreshTokenRequest);
 
+    void logout(HttpServletRequest request, RefreshTokenRequest refreshTokenRequest);
+
     void verifyEmailOtp(VerifyOtpRequest verifyOtpRequest);
 
     void resendEmailVerificationOtp(String email);
@@ -0,0 +1,111 @@
+package com.juahaki.juahaki.service.email;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends emails off the request thread. A dispatch is an ordered list of steps: each step is
+ * retried with exponential backoff until it succeeds or runs out of attempts, and only then
+ * does the next one start, so a verification code always goes out before the mails that
+ * follow it. Inside a transaction nothing is sent until it commits.
+ * <p>
+ * Pending sends are kept in memory only; anything still queued at shutdown is dropped.
+ */
+@Component
+@Slf4j
+public class EmailDispatcher implements DisposableBean {
+
+    private final ScheduledThreadPoolExecutor executor;
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+
+    public EmailDispatcher(
+            MeterRegistry meterRegistry,
+            @Value("${app.email.dispatch.threads:2}") int threads,
+            @Value("${app.email.dispatch.max-attempts:5}") int maxAttempts,
+            @Value("${app.email.dispatch.initial-backoff-ms:2000}") long initialBackoffMs) {
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMs = initialBackoffMs;
+        this.executor = new ScheduledThreadPoolExecutor(threads, runnable -> {
+            Thread thread = new Thread(runnable, "email-dispatch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.setRemoveOnCancelPolicy(true);
+
+        meterRegistry.gauge("email.dispatch.pending", executor, e -> e.getQueue().size());
+    }
+
+    /**
+     * Sends {@code steps} in order once the current transaction commits, or right away
+     * when there is none. Nothing is sent if the transaction rolls back.
+     */
+    public void dispatchAfterCommit(List<Step> steps) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(steps);
+                }
+            });
+        } else {
+            dispatch(steps);
+        }
+    }
+
+    public void dispatch(List<Step> steps) {
+        if (!steps.isEmpty()) {
+            executor.execute(() -> run(List.copyOf(steps), 0, 1));
+        }
+    }
+
+    private void run(List<Step> steps, int index, int attempt) {
+        Step step = steps.get(index);
+        try {
+            step.send().run();
+            record(step, "sent");
+        } catch (Exception e) {
+            if (attempt < maxAttempts) {
+                long delay = initialBackoffMs << (attempt - 1);
+                record(step, "retried");
+                log.warn("Failed to send {} email (attempt {}/{}), retrying in {} ms: {}",
+                        step.name(), attempt, maxAttempts, delay, e.getMessage());
+                executor.schedule(() -> run(steps, index, attempt + 1), delay, TimeUnit.MILLISECONDS);
+                return;
+            }
+            record(step, "failed");
+            log.error("Giving up on {} email after {} attempts", step.name(), maxAttempts, e);
+        }
+
+        if (index + 1 < steps.size()) {
+            executor.execute(() -> run(steps, index + 1, 1));
+        }
+    }
+
+    private void record(Step step, String result) {
+        meterRegistry.counter("email.dispatch", "email", step.name(), "result", result).increment();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("Dropping {} pending email sends at shutdown", executor.getQueue().size());
+            executor.shutdownNow();
+        }
+    }
+
+    public record Step(String name, Runnable send) {
+    }
+}
@@ -8,6 +8,7 @@ import com.juahaki.juahaki.model.user.User;
 import com.juahaki.juahaki.repository.user.UserRepository;
 import com.juahaki.juahaki.security.oauth.OAuth2UserPrincipal;
 import com.juahaki.juahaki.service.email.IEmailService;
+import com.juahaki.juahaki.service.user.UsernameAllocator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.oauth2.client.userinfo.DefaultOAuth2UserService;
@@ -27,6 +28,7 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
 
     private final UserRepository userRepository;
     private final IEmailService emailService;
+    private final UsernameAllocator usernameAllocator;
 
     @Override
     @Transactional
@@ -104,14 +106,10 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
         user.setEmailVerified(true);
         user.setImageUrl(oAuth2UserInfo.getImageUrl());
 
-        // Generate unique username for OAuth2 users
-        user.setUsername(generateUniqueUsername(oAuth2UserInfo.getEmail()));
-
         // OAuth2 users don't have passwords
         user.setPassword(null);
 
-        User savedUser = userRepository.save(user);
-        return savedUser;
+        return usernameAllocator.saveWithUniqueUsername(user, oAuth2UserInfo.getEmail());
     }
 
     private User updateExistingUser(User existingUser, OAuth2UserInfo oAuth2UserInfo) {
@@ -148,19 +146,6 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
         return existingUser;
     }
 
-    private String generateUniqueUsername(String email) {
-        String baseUsername = email.split("@")[0].toLowerCase().replaceAll("[^a-z0-9]", "");
-        String username = baseUsername;
-
-        int counter = 1;
-        while (userRepository.existsByUsername(username)) {
-            username = baseUsername + counter;
-            counter++;
-        }
-
-        return username;
-    }
-
     private void sendWelcomeEmail(User user) {
         try {
             String firstName = StringUtils.hasText(user.getFirstName()) ? user.getFirstName() : "Valued Customer";
@@ -6,6 +6,7 @@ import com.juahaki.juahaki.model.user.User;
 import com.juahaki.juahaki.repository.user.UserRepository;
 import com.juahaki.juahaki.security.oauth.OAuth2UserPrincipal;
 import com.juahaki.juahaki.service.email.IEmailService;
+import com.juahaki.juahaki.service.user.UsernameAllocator;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.oauth2.client.oidc.userinfo.OidcUserRequest;
 import org.springframework.security.oauth2.client.oidc.userinfo.OidcUserService;
@@ -23,6 +24,7 @@ public class CustomOidcUserService extends OidcUserService {
 
     private final UserRepository userRepository;
     private final IEmailService emailService;
+    private final UsernameAllocator usernameAllocator;
 
     @Override
     @Transactional
@@ -102,12 +104,9 @@ public class CustomOidcUserService extends OidcUserService {
         user.setEmailVerified(true);
         user.setImageUrl(oidcUser.getPicture());
 
-        user.setUsername(generateUniqueUsername(oidcUser.getEmail()));
-
         user.setPassword(null);
 
-        User savedUser = userRepository.save(user);
-        return savedUser;
+        return usernameAllocator.saveWithUniqueUsername(user, oidcUser.getEmail());
     }
 
     private User updateExistingUser(User existingUser, OidcUser oidcUser) {
@@ -144,19 +143,6 @@ public class CustomOidcUserService extends OidcUserService {
         return existingUser;
     }
 
-    private String generateUniqueUsername(String email) {
-        String baseUsername = email.split("@")[0].toLowerCase().replaceAll("[^a-z0-9]", "");
-        String username = baseUsername;
-
-        int counter = 1;
-        while (userRepository.existsByUsername(username)) {
-            username = baseUsername + counter;
-            counter++;
-        }
-
-        return username;
-    }
-
     private void sendWelcomeEmail(User user) {
         try {
             String firstName = StringUtils.hasText(user.getFirstName()) ? user.getFirstName() : "Valued Customer";
@@ -7,6 +7,13 @@ public interface IOtpService {
 
     void generateAndSendEmailVerificationOtp(User user);
 
+    /**
+     * Persist a new email verification OTP for the user without sending it
+     *
+     * @return the generated code, for the caller to deliver
+     */
+    String createEmailVerificationOtp(User user);
+
     void generateAndSendPasswordResetOtp(String email);
 
     boolean verifyEmailVerificationOtp(String email, String otpCode);
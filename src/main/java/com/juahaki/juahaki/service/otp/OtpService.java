@@ -1,17 +1,15 @@
 package com.juahaki.juahaki.service.otp;
 
-import java.time.LocalDateTime;
-import java.util.Optional;
+import java.time.Duration;
 import com.juahaki.juahaki.enums.OtpType;
 import com.juahaki.juahaki.exception.CustomException;
-import com.juahaki.juahaki.model.otp.Otp;
 import com.juahaki.juahaki.model.user.User;
-import com.juahaki.juahaki.repository.otp.OtpRepository;
 import com.juahaki.juahaki.repository.user.UserRepository;
+import com.juahaki.juahaki.security.jwt.UserDetailsServiceImpl;
 import com.juahaki.juahaki.service.email.IEmailService;
+import com.juahaki.juahaki.service.otp.store.OtpStore;
 import com.juahaki.juahaki.util.otp.OtpGenerator;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
@@ -21,10 +19,11 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class OtpService implements IOtpService {
 
-    private final OtpRepository otpRepository;
+    private final OtpStore otpStore;
     private final UserRepository userRepository;
     private final IEmailService emailService;
     private final OtpGenerator otpGenerator;
+    private final UserDetailsServiceImpl userDetailsService;
 
     @Value("${app.otp.expiry-minutes:10}")
     private int otpExpiryminutes;
@@ -35,14 +34,7 @@ public class OtpService implements IOtpService {
     @Override
     @Transactional
     public void generateAndSendEmailVerificationOtp(User user) {
-        validateUser(user);
-
-        otpRepository.invalidateUserOtpsByType(user, OtpType.EMAIL_VERIFICATION);
-
-        String otpCode = otpGenerator.generateOtp();
-
-        Otp otp = createOtp(otpCode, user.getEmail(), user, OtpType.EMAIL_VERIFICATION);
-        otpRepository.save(otp);
+        String otpCode = createEmailVerificationOtp(user);
 
         try {
             emailService.sendSignUpOtp(user.getEmail(), otpCode, user.getFirstName());
@@ -51,6 +43,17 @@ public class OtpService implements IOtpService {
         }
     }
 
+    @Override
+    @Transactional
+    public String createEmailVerificationOtp(User user) {
+        validateUser(user);
+
+        String otpCode = otpGenerator.generateOtp();
+        otpStore.issue(user, OtpType.EMAIL_VERIFICATION, otpCode.toUpperCase(), Duration.ofMinutes(otpExpiryminutes));
+
+        return otpCode;
+    }
+
     @Override
     @Transactional
     public void generateAndSendPasswordResetOtp(String email) {
@@ -61,12 +64,8 @@ public class OtpService implements IOtpService {
         User user = userRepository.findByEmail(email.toLowerCase().trim())
                 .orElseThrow(() -> new CustomException("User not found with email: " + email));
 
-        otpRepository.invalidateUserOtpsByType(user, OtpType.PASSWORD_RESET);
-
         String otpCode = otpGenerator.generateOtp();
-
-        Otp otp = createOtp(otpCode, user.getEmail(), user, OtpType.PASSWORD_RESET);
-        otpRepository.save(otp);
+        otpStore.issue(user, OtpType.PASSWORD_RESET, otpCode.toUpperCase(), Duration.ofMinutes(otpExpiryminutes));
 
         try {
             emailService.sendForgotPasswordOtp(user.getEmail(), otpCode, user.getFirstName());
@@ -104,6 +103,7 @@ public class OtpService implements IOtpService {
         user.setEmailVerified(true);
         user.setEnabled(true);
         userRepository.save(user);
+        userDetailsService.evictUser(user);
 
         try {
             emailService.sendAccountActivationSuccess(user.getEmail(), user.getFirstName());
@@ -140,20 +140,7 @@ public class OtpService implements IOtpService {
             return false;
         }
 
-        return otpRepository.findByOtpCodeAndEmailAndTypeAndIsUsedFalseAndIsExpiredFalse(
-                otpCode.toUpperCase(), email.toLowerCase().trim(), type).isPresent();
-    }
-
-    @Scheduled(fixedRate = 300000)
-    @Transactional
-    public void cleanUpExpiredOtps() {
-        try {
-            otpRepository.markExpiredOtps(LocalDateTime.now());
-
-            LocalDateTime cutOffDate = LocalDateTime.now().minusHours(24);
-            otpRepository.deleteOldOtps(cutOffDate);
-        } catch (Exception e) {
-        }
+        return otpStore.isValid(email.toLowerCase().trim(), type, otpCode.toUpperCase());
     }
 
     private boolean verifyOtp(String email, String otpCode, OtpType type) {
@@ -168,43 +155,12 @@ public class OtpService implements IOtpService {
         String normalizedEmail = email.toLowerCase().trim();
         String normalizedOtp = otpCode.toUpperCase();
 
-        Optional<Otp> otpOptional = otpRepository
-                .findByOtpCodeAndEmailAndTypeAndIsUsedFalseAndIsExpiredFalse(normalizedOtp, normalizedEmail, type);
-
-        if (otpOptional.isEmpty()) {
-            throw new CustomException("Invalid or expired otp");
-        }
-
-        Otp otp = otpOptional.get();
-
-        if (otp.isExpired()) {
-            otp.setExpired(true);
-            otpRepository.save(otp);
-            throw new CustomException("Otp has expired");
-        }
-
-        if (otp.hasExceededMaxAttempts()) {
-            otp.setExpired(true);
-            otpRepository.save(otp);
-            throw new CustomException("Maximum OTP attemps exceeded");
-        }
-
-        otp.markAsUsed();
-        otp.incrementAttempt();
-        otpRepository.save(otp);
-        return true;
-    }
-
-    private Otp createOtp(String otpCode, String email, User user, OtpType type) {
-        Otp otp = new Otp();
-        otp.setOtpCode(otpCode.toUpperCase());
-        otp.setEmail(email.toLowerCase().trim());
-        otp.setUser(user);
-        otp.setType(type);
-        otp.setCreatedAt(LocalDateTime.now());
-        otp.setExpiresAt(LocalDateTime.now().plusMinutes(otpExpiryminutes));
-
-        return otp;
+        return switch (otpStore.verify(normalizedEmail, type, normalizedOtp, maxOtpAttempts)) {
+            case VALID -> true;
+            case EXPIRED -> throw new CustomException("Otp has expired");
+            case TOO_MANY_ATTEMPTS -> throw new CustomException("Maximum OTP attemps exceeded");
+            case INVALID -> throw new CustomException("Invalid or expired otp");
+        };
     }
 
     private void validateUser(User user) {
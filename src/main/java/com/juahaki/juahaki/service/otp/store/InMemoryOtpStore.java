@@ -0,0 +1,145 @@
+package com.juahaki.juahaki.service.otp.store;
+
+import com.juahaki.juahaki.enums.OtpType;
+import com.juahaki.juahaki.model.user.User;
+import com.juahaki.juahaki.util.timer.TimingWheel;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * OTPs held in memory, keyed by (email, type). Each entry is scheduled on a
+ * {@link TimingWheel} when issued and dropped by the wheel when it expires, so expiry costs
+ * O(1) per OTP and nothing is ever scanned; reads also check the deadline themselves, so an
+ * entry is never honoured between its expiry and the next tick.
+ * <p>
+ * Codes are lost on restart and are not shared between instances, so this suits a single
+ * node or sticky routing; use the JPA store otherwise.
+ */
+@Service
+@ConditionalOnProperty(name = "app.otp.store", havingValue = "memory")
+public class InMemoryOtpStore implements OtpStore {
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final TimingWheel<Entry> expiryWheel;
+    private final Clock clock;
+
+    @Autowired
+    public InMemoryOtpStore(MeterRegistry meterRegistry, @Value("${app.otp.memory.tick-ms:1000}") long tickMillis) {
+        this(Clock.systemUTC(), tickMillis);
+        meterRegistry.gaugeMapSize("otp.store.active", Tags.empty(), entries);
+    }
+
+    InMemoryOtpStore(Clock clock, long tickMillis) {
+        this.clock = clock;
+        this.expiryWheel = new TimingWheel<>(tickMillis, clock.millis());
+    }
+
+    @Override
+    public void issue(User user, OtpType type, String code, Duration ttl) {
+        Key key = new Key(OtpCodes.normalizeEmail(user.getEmail()), type);
+        Entry entry = new Entry(key, code, clock.millis() + ttl.toMillis());
+        entry.timeout = expiryWheel.schedule(entry, entry.expiresAtMillis);
+
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            expiryWheel.cancel(previous.timeout);
+        }
+    }
+
+    @Override
+    public OtpVerification verify(String email, OtpType type, String code, int maxAttempts) {
+        Key key = new Key(email, type);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return OtpVerification.INVALID;
+        }
+
+        synchronized (entry) {
+            if (entry.done) {
+                return OtpVerification.INVALID;
+            }
+            if (clock.millis() >= entry.expiresAtMillis) {
+                remove(entry);
+                return OtpVerification.EXPIRED;
+            }
+
+            entry.attempts++;
+            if (OtpCodes.matches(entry.code, code)) {
+                remove(entry);
+                return OtpVerification.VALID;
+            }
+            if (entry.attempts >= maxAttempts) {
+                remove(entry);
+                return OtpVerification.TOO_MANY_ATTEMPTS;
+            }
+            return OtpVerification.INVALID;
+        }
+    }
+
+    @Override
+    public boolean isValid(String email, OtpType type, String code) {
+        Entry entry = entries.get(new Key(email, type));
+        if (entry == null) {
+            return false;
+        }
+        synchronized (entry) {
+            return !entry.done && clock.millis() < entry.expiresAtMillis && OtpCodes.matches(entry.code, code);
+        }
+    }
+
+    @Override
+    public void invalidate(String email, OtpType type) {
+        Entry entry = entries.get(new Key(email, type));
+        if (entry != null) {
+            synchronized (entry) {
+                remove(entry);
+            }
+        }
+    }
+
+    @Scheduled(fixedRateString = "${app.otp.memory.tick-ms:1000}")
+    public void expireDue() {
+        expiryWheel.advance(clock.millis(), entry -> {
+            entry.done = true;
+            entries.remove(entry.key, entry);
+        });
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void remove(Entry entry) {
+        entry.done = true;
+        entries.remove(entry.key, entry);
+        expiryWheel.cancel(entry.timeout);
+    }
+
+    private record Key(String email, OtpType type) {
+    }
+
+    private static final class Entry {
+        private final Key key;
+        private final String code;
+        private final long expiresAtMillis;
+        private int attempts;
+        private volatile boolean done;
+        private TimingWheel.Timeout<Entry> timeout;
+
+        private Entry(Key key, String code, long expiresAtMillis) {
+            this.key = key;
+            this.code = code;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
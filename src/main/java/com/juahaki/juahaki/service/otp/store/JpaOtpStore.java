@@ -0,0 +1,89 @@
+package com.juahaki.juahaki.service.otp.store;
+
+import com.juahaki.juahaki.enums.OtpType;
+import com.juahaki.juahaki.model.otp.Otp;
+import com.juahaki.juahaki.model.user.User;
+import com.juahaki.juahaki.repository.otp.OtpRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * OTPs as rows in {@code otps}; survives restarts and is shared by every instance. Expiry is
+ * checked when an OTP is read rather than swept, and old rows go with their partition, see
+ * {@link OtpPartitionManager}.
+ */
+@Service
+@ConditionalOnProperty(name = "app.otp.store", havingValue = "jpa", matchIfMissing = true)
+@RequiredArgsConstructor
+public class JpaOtpStore implements OtpStore {
+
+    private final OtpRepository otpRepository;
+
+    @Override
+    @Transactional
+    public void issue(User user, OtpType type, String code, Duration ttl) {
+        otpRepository.invalidateUserOtpsByType(user, type);
+
+        LocalDateTime now = LocalDateTime.now();
+        Otp otp = new Otp();
+        otp.setOtpCode(code);
+        otp.setEmail(OtpCodes.normalizeEmail(user.getEmail()));
+        otp.setUser(user);
+        otp.setType(type);
+        otp.setCreatedAt(now);
+        otp.setExpiresAt(now.plus(ttl));
+        otpRepository.save(otp);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public OtpVerification verify(String email, OtpType type, String code, int maxAttempts) {
+        Optional<Otp> active = otpRepository.findTopByEmailAndTypeAndIsUsedFalseAndIsExpiredFalseOrderByCreatedAtDesc(email, type);
+        if (active.isEmpty()) {
+            return OtpVerification.INVALID;
+        }
+
+        Otp otp = active.get();
+        if (otp.isExpired()) {
+            otp.setExpired(true);
+            otpRepository.save(otp);
+            return OtpVerification.EXPIRED;
+        }
+
+        otp.incrementAttempt();
+        if (OtpCodes.matches(otp.getOtpCode(), code)) {
+            otp.markAsUsed();
+            otpRepository.save(otp);
+            return OtpVerification.VALID;
+        }
+
+        if (otp.getAttemptCount() >= maxAttempts) {
+            otp.setExpired(true);
+            otpRepository.save(otp);
+            return OtpVerification.TOO_MANY_ATTEMPTS;
+        }
+        otpRepository.save(otp);
+        return OtpVerification.INVALID;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public boolean isValid(String email, OtpType type, String code) {
+        return otpRepository.findTopByEmailAndTypeAndIsUsedFalseAndIsExpiredFalseOrderByCreatedAtDesc(email, type)
+                .filter(otp -> !otp.isExpired() && OtpCodes.matches(otp.getOtpCode(), code))
+                .isPresent();
+    }
+
+    @Override
+    @Transactional
+    public void invalidate(String email, OtpType type) {
+        otpRepository.invalidateByEmailAndType(email, type);
+    }
+}
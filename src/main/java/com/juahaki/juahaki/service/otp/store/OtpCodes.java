@@ -0,0 +1,21 @@
+package com.juahaki.juahaki.service.otp.store;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+final class OtpCodes {
+
+    private OtpCodes() {
+    }
+
+    static String normalizeEmail(String email) {
+        return email.toLowerCase().trim();
+    }
+
+    static boolean matches(String expected, String presented) {
+        if (expected == null || presented == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8), presented.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,244 @@
+package com.juahaki.juahaki.service.otp.store;
+
+import com.juahaki.juahaki.repository.otp.OtpRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps {@code otps} range-partitioned by day on {@code created_at}, so retention detaches and
+ * drops whole partitions instead of deleting rows. The cost no longer depends on how many OTPs
+ * were issued, and dropped partitions leave nothing behind for vacuum.
+ * <p>
+ * Hibernate still creates {@code otps} as a plain table; on startup it is converted once. The
+ * existing table becomes the partition for everything up to the day of its newest row, a
+ * default partition catches rows no daily partition covers, and daily partitions are created
+ * {@code premake-days} ahead. A day whose rows already landed in the default partition is
+ * left there and cleaned up with a plain DELETE.
+ * <p>
+ * When partitioning is disabled or the database is not PostgreSQL, retention falls back to
+ * {@link OtpRepository#deleteOldOtps}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.otp.store", havingValue = "jpa", matchIfMissing = true)
+@Slf4j
+public class OtpPartitionManager {
+
+    private static final String TABLE = "otps";
+    private static final String DEFAULT_PARTITION = "otps_default";
+    private static final String PARTITION_PREFIX = "otps_p";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+    // Serializes conversion and maintenance across instances sharing the database
+    private static final long LOCK_KEY = 0x6f747073L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OtpRepository otpRepository;
+
+    @Value("${app.otp.partitioning.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.otp.partitioning.premake-days:2}")
+    private int premakeDays;
+
+    @Value("${app.otp.retention:24h}")
+    private Duration retention;
+
+    @Value("${spring.jpa.properties.hibernate.default_schema:public}")
+    private String schema;
+
+    private volatile boolean partitioned;
+
+    public OtpPartitionManager(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                               OtpRepository otpRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.otpRepository = otpRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (enabled) {
+            try {
+                partitioned = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                    lock();
+                    String kind = relationKind(TABLE);
+                    if (kind == null) {
+                        log.warn("Table {}.{} does not exist, OTP partitioning skipped", schema, TABLE);
+                        return false;
+                    }
+                    if ("r".equals(kind)) {
+                        convertToPartitioned();
+                    }
+                    return true;
+                }));
+            } catch (DataAccessException e) {
+                log.warn("Could not partition {}, falling back to row deletes: {}", TABLE, e.getMessage());
+            }
+        }
+        maintain();
+    }
+
+    @Scheduled(fixedDelayString = "${app.otp.partitioning.maintenance-interval-ms:3600000}",
+            initialDelayString = "${app.otp.partitioning.maintenance-interval-ms:3600000}")
+    public void maintain() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        try {
+            if (partitioned) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    lock();
+                    createUpcomingPartitions(LocalDate.now());
+                    dropPartitionsBefore(cutoff);
+                });
+            } else {
+                transactionTemplate.executeWithoutResult(status -> otpRepository.deleteOldOtps(cutoff));
+            }
+        } catch (DataAccessException e) {
+            log.warn("Failed to apply OTP retention: {}", e.getMessage());
+        }
+    }
+
+    private void convertToPartitioned() {
+        String legacy = TABLE + "_legacy";
+        String primaryKey = jdbcTemplate.queryForList(
+                "SELECT conname FROM pg_constraint WHERE conrelid = CAST(? AS regclass) AND contype = 'p'",
+                String.class, qualified(TABLE)).stream().findFirst().orElse(null);
+        List<Map<String, Object>> foreignKeys = jdbcTemplate.queryForList(
+                "SELECT conname, pg_get_constraintdef(oid) AS definition FROM pg_constraint"
+                        + " WHERE conrelid = CAST(? AS regclass) AND contype = 'f'", qualified(TABLE));
+        LocalDateTime newest = jdbcTemplate.queryForObject(
+                "SELECT max(created_at) FROM " + qualified(TABLE), LocalDateTime.class);
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(max(id), 0) FROM " + qualified(TABLE), Long.class);
+
+        jdbcTemplate.execute("ALTER TABLE " + qualified(TABLE) + " RENAME TO " + legacy);
+        if (primaryKey != null) {
+            // A partition cannot keep its own primary key; attaching gives it the parent's (id, created_at)
+            jdbcTemplate.execute("ALTER TABLE " + qualified(legacy) + " DROP CONSTRAINT " + quoted(primaryKey));
+        }
+
+        // The partition key has to be part of the primary key
+        jdbcTemplate.execute("CREATE TABLE " + qualified(TABLE) + " (LIKE " + qualified(legacy)
+                + " INCLUDING ALL EXCLUDING INDEXES, PRIMARY KEY (id, created_at)) PARTITION BY RANGE (created_at)");
+        jdbcTemplate.queryForObject("SELECT setval(pg_get_serial_sequence(?, 'id'), ?, false)",
+                Long.class, qualified(TABLE), maxId + 1);
+        jdbcTemplate.execute("ALTER TABLE " + qualified(legacy) + " ALTER COLUMN id DROP IDENTITY IF EXISTS");
+        for (Map<String, Object> foreignKey : foreignKeys) {
+            jdbcTemplate.execute("ALTER TABLE " + qualified(TABLE) + " ADD CONSTRAINT "
+                    + quoted((String) foreignKey.get("conname")) + " " + foreignKey.get("definition"));
+        }
+        jdbcTemplate.execute("CREATE INDEX " + TABLE + "_email_type_created_at_idx ON "
+                + qualified(TABLE) + " (email, type, created_at)");
+
+        if (newest == null) {
+            jdbcTemplate.execute("DROP TABLE " + qualified(legacy));
+        } else {
+            LocalDate lastDay = newest.toLocalDate();
+            String partition = partitionName(lastDay);
+            jdbcTemplate.execute("ALTER TABLE " + qualified(legacy) + " RENAME TO " + partition);
+            jdbcTemplate.execute("ALTER TABLE " + qualified(TABLE) + " ATTACH PARTITION " + qualified(partition)
+                    + " FOR VALUES FROM (MINVALUE) TO (" + bound(lastDay.plusDays(1)) + ")");
+        }
+        jdbcTemplate.execute("CREATE TABLE " + qualified(DEFAULT_PARTITION)
+                + " PARTITION OF " + qualified(TABLE) + " DEFAULT");
+        log.info("Converted {}.{} to daily range partitions", schema, TABLE);
+    }
+
+    private void createUpcomingPartitions(LocalDate today) {
+        Set<String> existing = new HashSet<>(partitionNames());
+        // The converted table is named after its newest day, so today is normally already covered
+        for (int offset = 0; offset <= premakeDays; offset++) {
+            LocalDate day = today.plusDays(offset);
+            String partition = partitionName(day);
+            if (existing.contains(partition)) {
+                continue;
+            }
+            // Creating a partition over rows already in the default partition would fail
+            Boolean inDefault = jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM " + qualified(DEFAULT_PARTITION)
+                            + " WHERE created_at >= ? AND created_at < ?)",
+                    Boolean.class, day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+            if (Boolean.TRUE.equals(inDefault)) {
+                log.warn("OTPs for {} are already in {}, leaving them there", day, DEFAULT_PARTITION);
+                continue;
+            }
+            jdbcTemplate.execute("CREATE TABLE " + qualified(partition) + " PARTITION OF " + qualified(TABLE)
+                    + " FOR VALUES FROM (" + bound(day) + ") TO (" + bound(day.plusDays(1)) + ")");
+        }
+    }
+
+    private void dropPartitionsBefore(LocalDateTime cutoff) {
+        for (String partition : partitionNames()) {
+            LocalDate day = partitionDay(partition);
+            // A partition only holds rows created before the end of its day
+            if (day == null || day.plusDays(1).atStartOfDay().isAfter(cutoff)) {
+                continue;
+            }
+            jdbcTemplate.execute("ALTER TABLE " + qualified(TABLE) + " DETACH PARTITION " + qualified(partition));
+            jdbcTemplate.execute("DROP TABLE " + qualified(partition));
+            log.info("Dropped OTP partition {}", partition);
+        }
+        jdbcTemplate.update("DELETE FROM " + qualified(DEFAULT_PARTITION) + " WHERE created_at < ?", cutoff);
+    }
+
+    private List<String> partitionNames() {
+        return jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid"
+                        + " WHERE i.inhparent = CAST(? AS regclass)", String.class, qualified(TABLE));
+    }
+
+    private String relationKind(String table) {
+        return jdbcTemplate.queryForList(
+                "SELECT c.relkind::text FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace"
+                        + " WHERE n.nspname = ? AND c.relname = ?", String.class, schema, table)
+                .stream().findFirst().orElse(null);
+    }
+
+    private void lock() {
+        jdbcTemplate.execute("SELECT pg_advisory_xact_lock(" + LOCK_KEY + ")");
+    }
+
+    private String qualified(String table) {
+        return schema + "." + table;
+    }
+
+    private static String partitionName(LocalDate day) {
+        return PARTITION_PREFIX + PARTITION_SUFFIX.format(day);
+    }
+
+    private static LocalDate partitionDay(String partition) {
+        if (!partition.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static String bound(LocalDate day) {
+        return "'" + day.atStartOfDay() + "'";
+    }
+
+    private static String quoted(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+}
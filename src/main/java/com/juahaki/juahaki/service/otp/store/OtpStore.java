@@ -0,0 +1,31 @@
+package com.juahaki.juahaki.service.otp.store;
+
+import com.juahaki.juahaki.enums.OtpType;
+import com.juahaki.juahaki.model.user.User;
+
+import java.time.Duration;
+
+/**
+ * Where outstanding OTPs live. A user has at most one active code per {@link OtpType};
+ * issuing a new one replaces the previous. OTPs are keyed by the user's email, lower-cased
+ * and trimmed; lookups expect the email in that form and codes already upper-cased.
+ * Selected with {@code app.otp.store} ({@code jpa} or {@code memory}).
+ */
+public interface OtpStore {
+
+    void issue(User user, OtpType type, String code, Duration ttl);
+
+    /**
+     * Check {@code code} against the active OTP and consume it on a match. A wrong code
+     * counts as an attempt; once {@code maxAttempts} is reached the OTP is invalidated.
+     * Effects are kept even if the caller's transaction later rolls back.
+     */
+    OtpVerification verify(String email, OtpType type, String code, int maxAttempts);
+
+    /**
+     * Whether {@code code} matches the active OTP, without consuming it or counting an attempt
+     */
+    boolean isValid(String email, OtpType type, String code);
+
+    void invalidate(String email, OtpType type);
+}
@@ -0,0 +1,9 @@
+package com.juahaki.juahaki.service.otp.store;
+
+public enum OtpVerification {
+    VALID,
+    // No active OTP, or the code did not match
+    INVALID,
+    EXPIRED,
+    TOO_MANY_ATTEMPTS
+}
@@ -0,0 +1,24 @@
+package com.juahaki.juahaki.service.token;
+
+import com.juahaki.juahaki.util.jwt.VerifiedToken;
+
+import java.util.UUID;
+
+public interface IRefreshTokenService {
+
+    /**
+     * Record the first refresh token of a new family, issued at login.
+     */
+    UUID startFamily(Long userId, String tokenId);
+
+    /**
+     * Record {@code newTokenId} as the successor of the presented refresh token.
+     * Presenting a token that was already rotated revokes its whole family.
+     */
+    UUID rotate(VerifiedToken presented, String newTokenId);
+
+    /**
+     * Revoke every refresh token descended from the same login.
+     */
+    void revokeFamily(VerifiedToken refreshToken);
+}
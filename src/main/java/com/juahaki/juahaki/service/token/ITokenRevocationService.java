@@ -0,0 +1,17 @@
+package com.juahaki.juahaki.service.token;
+
+import com.juahaki.juahaki.util.jwt.VerifiedToken;
+
+public interface ITokenRevocationService {
+
+    /**
+     * Check whether the token's jti has been revoked. Costs a few bloom filter
+     * probes and no I/O for tokens that were never revoked.
+     */
+    boolean isRevoked(VerifiedToken verifiedToken);
+
+    /**
+     * Revoke the token until its own expiry.
+     */
+    void revoke(VerifiedToken verifiedToken);
+}
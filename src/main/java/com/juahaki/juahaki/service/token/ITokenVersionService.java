@@ -0,0 +1,29 @@
+package com.juahaki.juahaki.service.token;
+
+import com.juahaki.juahaki.model.user.User;
+import com.juahaki.juahaki.util.jwt.VerifiedToken;
+
+import java.util.Collection;
+
+public interface ITokenVersionService {
+
+    /**
+     * Check the token's version claim against the user's current version.
+     * Served from an in-memory map; the database is only read on a miss.
+     */
+    boolean isCurrent(VerifiedToken verifiedToken);
+
+    /**
+     * Increment the user's token version so every token issued so far stops
+     * being accepted. The caller is responsible for saving the user.
+     */
+    void bump(User user);
+
+    void bump(Collection<User> users);
+
+    /**
+     * Drop the cached versions, e.g. once the users are deleted, so their
+     * tokens are rejected as soon as the entry is reloaded.
+     */
+    void invalidate(Collection<Long> userIds);
+}
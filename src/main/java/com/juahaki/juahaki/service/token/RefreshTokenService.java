@@ -0,0 +1,214 @@
+package com.juahaki.juahaki.service.token;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.juahaki.juahaki.exception.CustomException;
+import com.juahaki.juahaki.model.token.RefreshToken;
+import com.juahaki.juahaki.repository.token.RefreshTokenRepository;
+import com.juahaki.juahaki.util.jwt.VerifiedToken;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Refresh tokens are persisted in {@code refresh_tokens} and read through a compact
+ * in-memory index, so a rotation costs one keyed lookup and one insert. The index is
+ * written through on issue and rotation and only short-circuits what this instance already
+ * knows; reuse and family revocations made by any instance are enforced by the insert itself.
+ */
+@Service
+@Slf4j
+public class RefreshTokenService implements IRefreshTokenService {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final Cache<TokenKey, IndexEntry> index;
+    private final Counter reuseCounter;
+
+    @Value("${app.jwtRefreshExpirationMs}")
+    private long refreshExpirationMs;
+
+    @Value("${app.jwt.refresh-store.purge-batch-size:1000}")
+    private int purgeBatchSize;
+
+    public RefreshTokenService(
+            RefreshTokenRepository refreshTokenRepository,
+            MeterRegistry meterRegistry,
+            @Value("${app.jwt.refresh-store.index-max-size:100000}") long indexMaxSize,
+            @Value("${app.jwt.refresh-store.index-ttl-seconds:3600}") long indexTtlSeconds) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.index = Caffeine.newBuilder()
+                .maximumSize(indexMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(indexTtlSeconds))
+                .recordStats()
+                .build();
+        this.reuseCounter = Counter.builder("jwt.refresh.reuse_detected")
+                .description("Refresh tokens presented after they had already been rotated")
+                .register(meterRegistry);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, index, "refreshTokenIndex");
+    }
+
+    @Override
+    public UUID startFamily(Long userId, String tokenId) {
+        UUID familyId = UUID.randomUUID();
+        insert(hash(tokenId), null, familyId, userId);
+        return familyId;
+    }
+
+    @Override
+    public UUID rotate(VerifiedToken presented, String newTokenId) {
+        String presentedHash = hash(presented.getTokenId());
+        IndexEntry entry = lookup(presentedHash);
+
+        if (entry == null || !entry.userId.equals(presented.getUserId())) {
+            throw new CustomException("Refresh token is not recognised");
+        }
+        if (entry.revoked || entry.expiresAtMillis <= System.currentTimeMillis()) {
+            throw new CustomException("Refresh token has been revoked");
+        }
+        if (entry.rotated) {
+            handleReuse(entry);
+        }
+
+        boolean inserted = false;
+        try {
+            inserted = insert(hash(newTokenId), presentedHash, entry.familyId, entry.userId);
+        } catch (DataIntegrityViolationException e) {
+            // Another request, possibly on another instance, already rotated this token
+            handleReuse(entry);
+        }
+        if (!inserted) {
+            // Revoked elsewhere after this entry was cached
+            entry.revoked = true;
+            throw new CustomException("Refresh token has been revoked");
+        }
+        entry.rotated = true;
+        return entry.familyId;
+    }
+
+    @Override
+    public void revokeFamily(VerifiedToken refreshToken) {
+        if (refreshToken.getTokenId() == null) {
+            return;
+        }
+        IndexEntry entry = lookup(hash(refreshToken.getTokenId()));
+        if (entry != null) {
+            revokeFamily(entry.familyId);
+        }
+    }
+
+    /**
+     * Remove expired rows in short batches instead of one long-running delete.
+     */
+    @Scheduled(fixedRateString = "${app.jwt.refresh-store.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int total = 0;
+        int deleted;
+        do {
+            deleted = refreshTokenRepository.deleteExpiredBatch(now, purgeBatchSize);
+            total += deleted;
+        } while (deleted == purgeBatchSize);
+        log.debug("Purged {} expired refresh tokens", total);
+    }
+
+    private IndexEntry lookup(String tokenHash) {
+        TokenKey key = TokenKey.of(tokenHash);
+        IndexEntry entry = index.getIfPresent(key);
+        if (entry != null) {
+            return entry;
+        }
+        return refreshTokenRepository.findByTokenHash(tokenHash)
+                .map(row -> {
+                    IndexEntry loaded = IndexEntry.from(row);
+                    index.put(key, loaded);
+                    return loaded;
+                })
+                .orElse(null);
+    }
+
+    private boolean insert(String tokenHash, String parentHash, UUID familyId, Long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plus(Duration.ofMillis(refreshExpirationMs));
+        if (refreshTokenRepository.insertUnlessFamilyRevoked(tokenHash, parentHash, familyId, userId, expiresAt, now) == 0) {
+            return false;
+        }
+        index.put(TokenKey.of(tokenHash), new IndexEntry(familyId, userId, toMillis(expiresAt), false));
+        return true;
+    }
+
+    private void handleReuse(IndexEntry entry) {
+        reuseCounter.increment();
+        log.warn("Refresh token reuse detected for user {}; revoking family {}", entry.userId, entry.familyId);
+        revokeFamily(entry.familyId);
+        throw new CustomException("Refresh token has been revoked");
+    }
+
+    /**
+     * Cached entries of the family are left as they are; their next rotation is refused by
+     * the insert and marks them revoked then.
+     */
+    private void revokeFamily(UUID familyId) {
+        refreshTokenRepository.revokeFamily(familyId, LocalDateTime.now());
+    }
+
+    private static String hash(String tokenId) {
+        if (tokenId == null) {
+            throw new CustomException("Refresh token has no id");
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(tokenId.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * First 128 bits of the token hash; two longs instead of a 64-character string per entry.
+     */
+    private record TokenKey(long high, long low) {
+        static TokenKey of(String tokenHash) {
+            ByteBuffer bytes = ByteBuffer.wrap(HexFormat.of().parseHex(tokenHash, 0, 32));
+            return new TokenKey(bytes.getLong(), bytes.getLong());
+        }
+    }
+
+    private static final class IndexEntry {
+        private final UUID familyId;
+        private final Long userId;
+        private final long expiresAtMillis;
+        private volatile boolean rotated;
+        private volatile boolean revoked;
+
+        private IndexEntry(UUID familyId, Long userId, long expiresAtMillis, boolean revoked) {
+            this.familyId = familyId;
+            this.userId = userId;
+            this.expiresAtMillis = expiresAtMillis;
+            this.revoked = revoked;
+        }
+
+        static IndexEntry from(RefreshToken row) {
+            return new IndexEntry(row.getFamilyId(), row.getUserId(), toMillis(row.getExpiresAt()), row.getRevokedAt() != null);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.juahaki.juahaki.service.token;
+
+import com.juahaki.juahaki.model.token.RevokedToken;
+import com.juahaki.juahaki.repository.token.RevokedTokenRepository;
+import com.juahaki.juahaki.util.bloom.BloomFilter;
+import com.juahaki.juahaki.util.jwt.VerifiedToken;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revoked token ids are persisted in {@code revoked_tokens} (source of truth) and mirrored
+ * in memory as an exact map fronted by a bloom filter. Entries age out at the token's
+ * own expiry, and the filter is rebuilt from the surviving entries on every purge.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TokenRevocationService implements ITokenRevocationService {
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    // jti -> token expiry in epoch millis
+    private final Map<String, Long> revokedUntil = new ConcurrentHashMap<>();
+
+    private volatile BloomFilter bloomFilter;
+
+    private volatile LocalDateTime lastSyncedAt;
+
+    @Value("${app.jwt.revocation.expected-entries:100000}")
+    private long expectedEntries;
+
+    @Value("${app.jwt.revocation.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @PostConstruct
+    public void loadRevokedTokens() {
+        LocalDateTime now = LocalDateTime.now();
+        bloomFilter = new BloomFilter(expectedEntries, falsePositiveRate);
+        revokedTokenRepository.findByExpiresAtAfter(now).forEach(this::remember);
+        lastSyncedAt = now;
+        log.info("Loaded {} revoked tokens", revokedUntil.size());
+    }
+
+    @Override
+    public boolean isRevoked(VerifiedToken verifiedToken) {
+        String jti = verifiedToken.getTokenId();
+        if (jti == null || !bloomFilter.mightContain(jti)) {
+            return false;
+        }
+        Long until = revokedUntil.get(jti);
+        return until != null && until > System.currentTimeMillis();
+    }
+
+    @Override
+    @Transactional
+    public void revoke(VerifiedToken verifiedToken) {
+        String jti = verifiedToken.getTokenId();
+        if (jti == null || verifiedToken.getExpiration() == null || revokedUntil.containsKey(jti)) {
+            return;
+        }
+
+        LocalDateTime expiresAt = LocalDateTime.ofInstant(verifiedToken.getExpiration().toInstant(), ZoneId.systemDefault());
+        // A concurrent logout with the same token may have inserted the row already
+        revokedTokenRepository.insertIfAbsent(jti, verifiedToken.getUserId(), expiresAt, LocalDateTime.now());
+        remember(jti, verifiedToken.getExpiration().getTime());
+    }
+
+    /**
+     * Pick up revocations written by other instances since the last sync.
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.sync-interval-ms:30000}")
+    public void syncFromDatabase() {
+        LocalDateTime now = LocalDateTime.now();
+        // Overlap the window slightly so rows committed around the last sync are not missed
+        LocalDateTime since = lastSyncedAt.minusSeconds(5);
+        revokedTokenRepository.findByRevokedAtAfterAndExpiresAtAfter(since, now).forEach(this::remember);
+        lastSyncedAt = now;
+    }
+
+    @Scheduled(fixedRateString = "${app.jwt.revocation.purge-interval-ms:600000}")
+    @Transactional
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        revokedUntil.values().removeIf(until -> until <= now);
+        rebuildBloomFilter();
+
+        int deleted = revokedTokenRepository.deleteExpired(LocalDateTime.now());
+        log.debug("Purged {} expired revoked tokens", deleted);
+    }
+
+    private void remember(RevokedToken revokedToken) {
+        long until = revokedToken.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        remember(revokedToken.getJti(), until);
+    }
+
+    private synchronized void remember(String jti, long until) {
+        revokedUntil.put(jti, until);
+        bloomFilter.put(jti);
+    }
+
+    private synchronized void rebuildBloomFilter() {
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, revokedUntil.size() * 2L), falsePositiveRate);
+        revokedUntil.keySet().forEach(rebuilt::put);
+        bloomFilter = rebuilt;
+    }
+}
@@ -0,0 +1,93 @@
+package com.juahaki.juahaki.service.token;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.juahaki.juahaki.model.user.User;
+import com.juahaki.juahaki.repository.user.UserRepository;
+import com.juahaki.juahaki.util.jwt.VerifiedToken;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps a userId -> token version map in memory. Local bumps invalidate the entry
+ * immediately; bumps made by other instances are picked up once the entry expires,
+ * so {@code app.jwt.token-version.cache-ttl-seconds} bounds cross-node staleness.
+ */
+@Service
+@Slf4j
+public class TokenVersionService implements ITokenVersionService {
+
+    // Marker for users that no longer exist; Caffeine does not store nulls
+    private static final int MISSING_USER = -1;
+
+    private final UserRepository userRepository;
+    private final Cache<Long, Integer> versions;
+
+    public TokenVersionService(
+            UserRepository userRepository,
+            MeterRegistry meterRegistry,
+            @Value("${app.jwt.token-version.cache-max-size:100000}") long maxSize,
+            @Value("${app.jwt.token-version.cache-ttl-seconds:30}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, versions, "tokenVersions");
+    }
+
+    @Override
+    public boolean isCurrent(VerifiedToken verifiedToken) {
+        Long userId = verifiedToken.getUserId();
+        if (userId == null) {
+            return false;
+        }
+        int current = versions.get(userId,
+                id -> userRepository.findTokenVersionById(id).orElse(MISSING_USER));
+        return current != MISSING_USER && current == verifiedToken.getTokenVersionOrDefault();
+    }
+
+    @Override
+    public void bump(User user) {
+        user.incrementTokenVersion();
+        invalidate(Set.of(user.getId()));
+    }
+
+    @Override
+    public void bump(Collection<User> users) {
+        users.forEach(User::incrementTokenVersion);
+        invalidate(users.stream().map(User::getId).collect(Collectors.toSet()));
+    }
+
+    @Override
+    public void invalidate(Collection<Long> userIds) {
+        invalidate(Set.copyOf(userIds));
+    }
+
+    private void invalidate(Set<Long> userIds) {
+        versions.invalidateAll(userIds);
+
+        // A request racing the commit could re-cache the old version, so drop it again afterwards
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    versions.invalidateAll(userIds);
+                }
+            });
+        }
+        log.debug("Invalidated token version for users: {}", userIds);
+    }
+}
@@ -0,0 +1,26 @@
+package com.juahaki.juahaki.service.user;
+
+import com.juahaki.juahaki.model.user.User;
+
+public interface IUserAvailabilityService {
+
+    boolean isUsernameTaken(String username);
+
+    boolean isEmailTaken(String email);
+
+    /**
+     * True only when the filter can rule the username out without asking the database
+     */
+    boolean isUsernameKnownFree(String username);
+
+    /**
+     * Record a newly saved user, or a user whose username or email just changed
+     */
+    void recordUser(User user);
+
+    /**
+     * Record that users were deleted or renamed; their old values stay in the filter
+     * as "maybe taken" until the next rebuild
+     */
+    void recordRemoved(int count);
+}
@@ -4,12 +4,12 @@ import com.juahaki.juahaki.dto.user.UpdatePasswordRequest;
 import com.juahaki.juahaki.dto.user.UpdateProfileRequest;
 import com.juahaki.juahaki.dto.user.UserInfo;
 import com.juahaki.juahaki.model.user.User;
-import jakarta.servlet.http.HttpServletRequest;
+import com.juahaki.juahaki.security.jwt.CurrentUser;
 
 public interface IUserManagementService {
-    UserInfo updatePassword(HttpServletRequest request, UpdatePasswordRequest updatePasswordRequest);
+    UserInfo updatePassword(CurrentUser currentUser, UpdatePasswordRequest updatePasswordRequest);
 
-    UserInfo updateProfile(HttpServletRequest request, UpdateProfileRequest updateProfileRequest);
+    UserInfo updateProfile(CurrentUser currentUser, UpdateProfileRequest updateProfileRequest);
 
     void validatePasswordUpdateRequest(User user, UpdatePasswordRequest request);
 
@@ -21,7 +21,7 @@ public interface IUserManagementService {
 
     void resetPassword(String email, String otp, String newPassword);
 
-    UserInfo getUserById(HttpServletRequest request);
+    UserInfo getUserById(CurrentUser currentUser);
 
-    void deleteUser(HttpServletRequest request);
+    void deleteUser(CurrentUser currentUser);
 }
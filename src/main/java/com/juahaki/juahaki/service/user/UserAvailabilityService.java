@@ -0,0 +1,206 @@
+package com.juahaki.juahaki.service.user;
+
+import com.juahaki.juahaki.model.user.User;
+import com.juahaki.juahaki.repository.user.UserRepository;
+import com.juahaki.juahaki.util.bloom.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filters over normalized usernames and emails, so "is this free?" checks that come
+ * back negative never reach the database. Only "maybe taken" falls through to
+ * {@code existsByUsername} / {@code existsByEmail}.
+ * <p>
+ * The filters are built by streaming the users table once the application is ready and
+ * updated as users are saved locally. Deleted or renamed values cannot be removed from a
+ * bloom filter, so they are counted and the filters are rebuilt once enough have piled up,
+ * or on the regular interval, which is also when users added by other instances are picked
+ * up. Until then such a user can look free here; the unique constraints on {@code users}
+ * still reject the insert.
+ */
+@Service
+@Slf4j
+public class UserAvailabilityService implements IUserAvailabilityService {
+
+    private final UserRepository userRepository;
+    private final Counter filteredLookups;
+    private final Counter databaseLookups;
+
+    private final AtomicLong entries = new AtomicLong();
+    private final AtomicLong staleEntries = new AtomicLong();
+
+    @Value("${app.users.availability.expected-entries:100000}")
+    private long expectedEntries;
+
+    @Value("${app.users.availability.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${app.users.availability.stale-rebuild-fraction:0.1}")
+    private double staleRebuildFraction;
+
+    @Value("${app.users.availability.max-age-ms:3600000}")
+    private long maxAgeMs;
+
+    // null until the first build completes; lookups go to the database meanwhile
+    private volatile Filters filters;
+    // The filter being built, so users saved while the table is streamed are not lost
+    private volatile Filters building;
+
+    public UserAvailabilityService(UserRepository userRepository, MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.filteredLookups = Counter.builder("users.availability.lookups")
+                .description("Availability checks answered by the filter or the database")
+                .tag("source", "filter")
+                .register(meterRegistry);
+        this.databaseLookups = Counter.builder("users.availability.lookups")
+                .description("Availability checks answered by the filter or the database")
+                .tag("source", "database")
+                .register(meterRegistry);
+        meterRegistry.gauge("users.availability.stale_entries", staleEntries);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        rebuild();
+    }
+
+    @Override
+    public boolean isUsernameTaken(String username) {
+        String normalized = normalize(username);
+        if (normalized == null) {
+            return false;
+        }
+        Filters current = filters;
+        if (current != null && !current.usernames.mightContain(normalized)) {
+            filteredLookups.increment();
+            return false;
+        }
+        databaseLookups.increment();
+        return userRepository.existsByUsername(normalized);
+    }
+
+    @Override
+    public boolean isEmailTaken(String email) {
+        String normalized = normalize(email);
+        if (normalized == null) {
+            return false;
+        }
+        Filters current = filters;
+        if (current != null && !current.emails.mightContain(normalized)) {
+            filteredLookups.increment();
+            return false;
+        }
+        databaseLookups.increment();
+        return userRepository.existsByEmail(normalized);
+    }
+
+    @Override
+    public boolean isUsernameKnownFree(String username) {
+        String normalized = normalize(username);
+        Filters current = filters;
+        if (normalized == null || current == null || current.usernames.mightContain(normalized)) {
+            return false;
+        }
+        filteredLookups.increment();
+        return true;
+    }
+
+    @Override
+    public void recordUser(User user) {
+        String username = normalize(user.getUsername());
+        String email = normalize(user.getEmail());
+        // Read in the opposite order to rebuild's writes (building set, filters swapped,
+        // building cleared): whichever side of the swap this lands on, the new filter is
+        // one of the two seen here
+        Filters next = building;
+        Filters current = filters;
+        if (current != null) {
+            current.put(username, email);
+            entries.incrementAndGet();
+        }
+        if (next != null && next != current) {
+            next.put(username, email);
+        }
+    }
+
+    @Override
+    public void recordRemoved(int count) {
+        staleEntries.addAndGet(count);
+    }
+
+    @Scheduled(fixedDelayString = "${app.users.availability.check-interval-ms:60000}")
+    @Transactional(readOnly = true)
+    public void rebuildIfStale() {
+        Filters current = filters;
+        if (current == null) {
+            return;
+        }
+        boolean tooStale = staleEntries.get() > Math.max(100, entries.get() * staleRebuildFraction);
+        boolean tooOld = System.currentTimeMillis() - current.builtAt > maxAgeMs;
+        if (tooStale || tooOld) {
+            rebuild();
+        }
+    }
+
+    private synchronized void rebuild() {
+        long started = System.currentTimeMillis();
+        long stale = staleEntries.get();
+        // Leave headroom for signups until the next rebuild
+        Filters rebuilt = new Filters(Math.max(expectedEntries, userRepository.count() * 2), falsePositiveRate, started);
+
+        building = rebuilt;
+        long count = 0;
+        try (Stream<Object[]> rows = userRepository.streamUsernamesAndEmails()) {
+            for (Object[] row : (Iterable<Object[]>) rows::iterator) {
+                rebuilt.put(normalize((String) row[0]), normalize((String) row[1]));
+                count++;
+            }
+            filters = rebuilt;
+        } finally {
+            building = null;
+        }
+
+        entries.set(count);
+        staleEntries.addAndGet(-stale);
+        log.info("Built username/email availability filter over {} users in {} ms",
+                count, System.currentTimeMillis() - started);
+    }
+
+    private static String normalize(String value) {
+        return StringUtils.hasText(value) ? value.trim().toLowerCase(Locale.ROOT) : null;
+    }
+
+    private static final class Filters {
+        private final BloomFilter usernames;
+        private final BloomFilter emails;
+        private final long builtAt;
+
+        private Filters(long expectedEntries, double falsePositiveRate, long builtAt) {
+            this.usernames = new BloomFilter(expectedEntries, falsePositiveRate);
+            this.emails = new BloomFilter(expectedEntries, falsePositiveRate);
+            this.builtAt = builtAt;
+        }
+
+        private void put(String username, String email) {
+            if (username != null) {
+                usernames.put(username);
+            }
+            if (email != null) {
+                emails.put(email);
+            }
+        }
+    }
+}
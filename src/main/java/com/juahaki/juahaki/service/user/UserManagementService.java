@@ -6,10 +6,12 @@ import com.juahaki.juahaki.dto.user.UserInfo;
 import com.juahaki.juahaki.exception.CustomException;
 import com.juahaki.juahaki.model.user.User;
 import com.juahaki.juahaki.repository.user.UserRepository;
+import com.juahaki.juahaki.security.jwt.CurrentUser;
+import com.juahaki.juahaki.security.jwt.UserDetailsServiceImpl;
+import com.juahaki.juahaki.security.password.BreachedPasswordChecker;
 import com.juahaki.juahaki.service.email.IEmailService;
 import com.juahaki.juahaki.service.otp.IOtpService;
-import com.juahaki.juahaki.util.jwt.JwtHelperService;
-import jakarta.servlet.http.HttpServletRequest;
+import com.juahaki.juahaki.service.token.ITokenVersionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
@@ -18,6 +20,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -28,16 +31,19 @@ public class UserManagementService implements IUserManagementService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final ModelMapper modelMapper;
-    private final JwtHelperService jwtHelperService;
     private final IOtpService otpService;
     private final IEmailService emailService;
+    private final UserDetailsServiceImpl userDetailsService;
+    private final ITokenVersionService tokenVersionService;
+    private final BreachedPasswordChecker breachedPasswordChecker;
+    private final IUserAvailabilityService userAvailabilityService;
 
     @Override
     @Transactional
-    public UserInfo updatePassword(HttpServletRequest request, UpdatePasswordRequest updatePasswordRequest) {
+    public UserInfo updatePassword(CurrentUser currentUser, UpdatePasswordRequest updatePasswordRequest) {
         validatePasswordUpdateRequest(null, updatePasswordRequest);
 
-        Long userId = jwtHelperService.getCurrentUserIdFromRequest(request);
+        Long userId = currentUser.getId();
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new CustomException("User not found"));
 
@@ -48,18 +54,21 @@ public class UserManagementService implements IUserManagementService {
                         updatePasswordRequest.getNewPassword())) {
             throw new CustomException("New password must be significantly different from current password");
         }
+        breachedPasswordChecker.checkNotBreached(updatePasswordRequest.getNewPassword());
 
         user.setPassword(passwordEncoder.encode(updatePasswordRequest.getNewPassword()));
+        tokenVersionService.bump(user);
 
         User savedUser = userRepository.save(user);
+        userDetailsService.evictUser(savedUser);
 
         return mapToUserInfo(savedUser);
     }
 
     @Override
     @Transactional
-    public UserInfo updateProfile(HttpServletRequest request, UpdateProfileRequest updateProfileRequest) {
-        Long userId = jwtHelperService.getCurrentUserIdFromRequest(request);
+    public UserInfo updateProfile(CurrentUser currentUser, UpdateProfileRequest updateProfileRequest) {
+        Long userId = currentUser.getId();
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new CustomException("User not found"));
 
@@ -83,16 +92,21 @@ public class UserManagementService implements IUserManagementService {
                 !updateProfileRequest.getUsername().equals(user.getUsername())) {
             String newUsername = updateProfileRequest.getUsername().trim().toLowerCase();
 
-            if (userRepository.existsByUsername(newUsername)) {
+            if (userAvailabilityService.isUsernameTaken(newUsername)) {
                 throw new CustomException("Username already exists");
             }
 
             user.setUsername(newUsername);
+            userAvailabilityService.recordUser(user);
+            userAvailabilityService.recordRemoved(1);
+            // Tokens carry the username as subject, so the old ones can no longer resolve
+            tokenVersionService.bump(user);
             updated = true;
         }
 
         if (updated) {
             User savedUser = userRepository.save(user);
+            userDetailsService.evictUser(savedUser);
             return mapToUserInfo(savedUser);
         }
 
@@ -221,6 +235,8 @@ public class UserManagementService implements IUserManagementService {
         if (!StringUtils.hasText(email) || !StringUtils.hasText(otp) || !StringUtils.hasText(newPassword)) {
             throw new IllegalArgumentException("Email, OTP, and new password are required");
         }
+        // Before the OTP is consumed, so the user can retry with another password
+        breachedPasswordChecker.checkNotBreached(newPassword);
 
         if (!otpService.verifyPasswordResetOtp(email, otp)) {
             throw new CustomException("Invalid or expired OTP");
@@ -230,7 +246,9 @@ public class UserManagementService implements IUserManagementService {
                 .orElseThrow(() -> new CustomException("User not found"));
 
         user.setPassword(passwordEncoder.encode(newPassword));
+        tokenVersionService.bump(user);
         userRepository.save(user);
+        userDetailsService.evictUser(user);
 
         try {
             emailService.sendPasswordResetSuccess(user.getEmail(), user.getFirstName());
@@ -243,8 +261,8 @@ public class UserManagementService implements IUserManagementService {
 
     @Override
     @Transactional
-    public UserInfo getUserById(HttpServletRequest request) {
-        Long userId = jwtHelperService.getCurrentUserIdFromRequest(request);
+    public UserInfo getUserById(CurrentUser currentUser) {
+        Long userId = currentUser.getId();
         return userRepository.findById(userId)
                 .map(this::mapToUserInfo)
                 .orElseThrow(() -> new CustomException("User with " + userId + " Not found"));
@@ -252,10 +270,15 @@ public class UserManagementService implements IUserManagementService {
 
     @Override
     @Transactional
-    public void deleteUser(HttpServletRequest request) {
-        Long userId = jwtHelperService.getCurrentUserIdFromRequest(request);
+    public void deleteUser(CurrentUser currentUser) {
+        Long userId = currentUser.getId();
         Optional.ofNullable(userId)
-                .ifPresentOrElse(userRepository::deleteById, () -> {
+                .ifPresentOrElse(id -> {
+                    userRepository.deleteById(id);
+                    userDetailsService.evictUser(id);
+                    tokenVersionService.invalidate(List.of(id));
+                    userAvailabilityService.recordRemoved(1);
+                }, () -> {
                     throw new CustomException("User Not Found");
                 });
     }
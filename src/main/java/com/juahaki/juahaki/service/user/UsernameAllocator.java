@@ -0,0 +1,149 @@
+package com.juahaki.juahaki.service.user;
+
+import com.juahaki.juahaki.exception.CustomException;
+import com.juahaki.juahaki.model.user.User;
+import com.juahaki.juahaki.repository.user.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Picks a free username of the form {@code base}, {@code base1}, {@code base2}, ... for users
+ * created without one (OAuth sign-ups). Every taken name sharing the base comes back from a
+ * single range query and the lowest free suffix is chosen in memory. The range is compared
+ * in the "C" collation, which only an index built with it can serve, so that index is
+ * created on startup.
+ * <p>
+ * Two sign-ups can still pick the same name at once, so the insert runs in its own
+ * transaction and a unique-constraint failure on the username simply tries the next suffix.
+ */
+@Service
+@Slf4j
+public class UsernameAllocator {
+
+    private static final int MAX_ATTEMPTS = 5;
+    private static final String FALLBACK_BASE = "user";
+    private static final String USERNAME_INDEX = "users_username_c_idx";
+
+    private final UserRepository userRepository;
+    private final IUserAvailabilityService userAvailabilityService;
+    private final TransactionTemplate insertTransaction;
+    private final JdbcTemplate jdbcTemplate;
+
+    public UsernameAllocator(UserRepository userRepository,
+                             IUserAvailabilityService userAvailabilityService,
+                             PlatformTransactionManager transactionManager,
+                             JdbcTemplate jdbcTemplate) {
+        this.userRepository = userRepository;
+        this.userAvailabilityService = userAvailabilityService;
+        this.jdbcTemplate = jdbcTemplate;
+        // A failed insert aborts the surrounding Postgres transaction, so retries need a fresh one
+        this.insertTransaction = new TransactionTemplate(transactionManager);
+        this.insertTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Built concurrently so sign-ups are not blocked while an existing users table is indexed
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void createUsernameIndex() {
+        try {
+            jdbcTemplate.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + USERNAME_INDEX
+                    + " ON users (username COLLATE \"C\")");
+        } catch (DataAccessException e) {
+            log.warn("Could not create {}, username allocation will scan users: {}", USERNAME_INDEX, e.getMessage());
+        }
+    }
+
+    /**
+     * Assign a unique username derived from {@code email} and insert the user.
+     */
+    public User saveWithUniqueUsername(User user, String email) {
+        String base = baseUsername(email);
+        Set<String> lostRaces = new HashSet<>();
+
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            String candidate = nextFreeUsername(base, lostRaces);
+            user.setUsername(candidate);
+            try {
+                User savedUser = insertTransaction.execute(status -> userRepository.saveAndFlush(user));
+                userAvailabilityService.recordUser(savedUser);
+                return savedUser;
+            } catch (DataIntegrityViolationException e) {
+                if (!Boolean.TRUE.equals(userRepository.existsByUsername(candidate))) {
+                    // Some other constraint failed, e.g. the same email signing up twice
+                    throw e;
+                }
+                log.debug("Username {} was taken concurrently, retrying (attempt {})", candidate, attempt);
+                lostRaces.add(candidate);
+            }
+        }
+        throw new CustomException("Could not allocate a unique username. Please try again");
+    }
+
+    String nextFreeUsername(String base, Set<String> alsoTaken) {
+        if (alsoTaken.isEmpty() && userAvailabilityService.isUsernameKnownFree(base)) {
+            return base;
+        }
+
+        Set<String> taken = new HashSet<>(userRepository.findUsernamesInRange(base, upperBound(base)));
+        taken.addAll(alsoTaken);
+        if (!taken.contains(base)) {
+            return base;
+        }
+
+        BitSet usedSuffixes = new BitSet();
+        for (String username : taken) {
+            int suffix = suffixOf(base, username);
+            if (suffix > 0) {
+                usedSuffixes.set(suffix);
+            }
+        }
+        return base + usedSuffixes.nextClearBit(1);
+    }
+
+    private static String baseUsername(String email) {
+        String base = email.split("@")[0].toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+        return base.isEmpty() ? FALLBACK_BASE : base;
+    }
+
+    /**
+     * Smallest string greater than every string starting with {@code base} in byte order;
+     * bases only contain [a-z0-9], so bumping the last character is enough.
+     */
+    static String upperBound(String base) {
+        char last = base.charAt(base.length() - 1);
+        return base.substring(0, base.length() - 1) + (char) (last + 1);
+    }
+
+    /**
+     * The numeric suffix of {@code base + digits}, or -1 for anything else
+     */
+    static int suffixOf(String base, String username) {
+        if (username.length() <= base.length() || !username.startsWith(base)
+                || username.length() - base.length() > 9 || username.charAt(base.length()) == '0') {
+            return -1;
+        }
+        int suffix = 0;
+        for (int i = base.length(); i < username.length(); i++) {
+            char c = username.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            suffix = suffix * 10 + (c - '0');
+        }
+        return suffix;
+    }
+}
@@ -0,0 +1,76 @@
+package com.juahaki.juahaki.util.bloom;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe bloom filter over strings. A negative answer is definite, a positive
+ * one only means "maybe", so callers fall back to an exact check on hits.
+ * Entries cannot be removed; callers rebuild a fresh filter to age entries out.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long numBits;
+    private final int numHashes;
+
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long insertions = Math.max(1, expectedInsertions);
+        double rate = Math.min(Math.max(falsePositiveRate, 1e-9), 0.5);
+
+        long optimalBits = (long) Math.ceil(-insertions * Math.log(rate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (optimalBits + 63) >>> 6));
+
+        this.bits = new AtomicLongArray(words);
+        this.numBits = (long) words << 6;
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / insertions * Math.log(2)));
+    }
+
+    public void put(String value) {
+        long h1 = hash64(value);
+        long h2 = Long.rotateLeft(h1, 32) | 1L;
+        for (int i = 1; i <= numHashes; i++) {
+            setBit(bitIndex(h1 + i * h2));
+        }
+    }
+
+    public boolean mightContain(String value) {
+        long h1 = hash64(value);
+        long h2 = Long.rotateLeft(h1, 32) | 1L;
+        for (int i = 1; i <= numHashes; i++) {
+            long index = bitIndex(h1 + i * h2);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long bitIndex(long combinedHash) {
+        return (combinedHash & Long.MAX_VALUE) % numBits;
+    }
+
+    private void setBit(long index) {
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        long current;
+        do {
+            current = bits.get(word);
+            if ((current & mask) != 0) {
+                return;
+            }
+        } while (!bits.compareAndSet(word, current, current | mask));
+    }
+
+    private static long hash64(String value) {
+        long hash = 0x9E3779B97F4A7C15L ^ value.length();
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0xff51afd7ed558ccdL;
+            hash = Long.rotateLeft(hash, 31);
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,55 @@
+package com.juahaki.juahaki.util.jwt;
+
+import com.juahaki.juahaki.enums.Role;
+import lombok.Getter;
+
+/**
+ * Claim layouts we can issue. Both are always accepted when reading, so the issuing
+ * profile can be switched with {@code app.jwt.claims.profile} while older tokens are
+ * still in circulation. Compact tokens carry {@code "cp":1} to mark the layout version,
+ * use short keys and role codes, and only refresh tokens keep the email.
+ */
+@Getter
+public enum ClaimProfile {
+    STANDARD("userId", "role", "type", "ver", "refresh"),
+    COMPACT("uid", "rl", "t", "v", "r");
+
+    public static final String COMPACT_MARKER = "cp";
+    public static final int COMPACT_VERSION = 1;
+
+    private final String userIdKey;
+    private final String roleKey;
+    private final String typeKey;
+    private final String versionKey;
+    private final String refreshType;
+
+    ClaimProfile(String userIdKey, String roleKey, String typeKey, String versionKey, String refreshType) {
+        this.userIdKey = userIdKey;
+        this.roleKey = roleKey;
+        this.typeKey = typeKey;
+        this.versionKey = versionKey;
+        this.refreshType = refreshType;
+    }
+
+    public String formatRole(Role role) {
+        return this == COMPACT ? role.getCode() : role.name();
+    }
+
+    public Role parseRole(String value) {
+        if (value == null) {
+            return null;
+        }
+        return this == COMPACT ? Role.fromCode(value) : Role.fromString(value);
+    }
+
+    /**
+     * Token type in the form {@link VerifiedToken} uses, whatever the layout
+     */
+    public String parseType(String value) {
+        return refreshType.equals(value) ? "refresh" : value;
+    }
+
+    public boolean includesEmail(boolean refresh) {
+        return this == STANDARD || refresh;
+    }
+}
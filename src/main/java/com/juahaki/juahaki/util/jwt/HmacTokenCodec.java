@@ -0,0 +1,540 @@
+package com.juahaki.juahaki.util.jwt;
+
+import com.juahaki.juahaki.enums.Role;
+import io.jsonwebtoken.security.SignatureException;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Specialised HMAC codec for our own claim set ({@code jti}, {@code sub}, {@code userId},
+ * {@code email}, {@code role}, {@code type}, {@code ver}, {@code iat}, {@code exp}) in
+ * either {@link ClaimProfile} layout.
+ * Produces the same compact JWS that jjwt does for the same key, but writes JSON and
+ * base64url straight into per-thread scratch buffers and reuses one {@link Mac} per thread.
+ * <p>
+ * {@link #decode(String)} returns null for anything outside the fast path (another header,
+ * an unexpected claim, an expired token) so the caller can fall back to jjwt, which then
+ * produces the usual exceptions. A bad signature is rejected here directly.
+ */
+final class HmacTokenCodec {
+
+    private static final byte[] BASE64_URL = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_"
+            .getBytes(StandardCharsets.US_ASCII);
+    private static final int[] BASE64_URL_INVERSE = new int[128];
+
+    static {
+        Arrays.fill(BASE64_URL_INVERSE, -1);
+        for (int i = 0; i < BASE64_URL.length; i++) {
+            BASE64_URL_INVERSE[BASE64_URL[i]] = i;
+        }
+    }
+
+    private final String headerSegment;
+    private final byte[] headerBytes;
+    private final int macLength;
+    private final ThreadLocal<Mac> macs;
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    HmacTokenCodec(SecretKey key) {
+        String algorithm = switch (key.getAlgorithm()) {
+            case "HmacSHA256" -> "HS256";
+            case "HmacSHA384" -> "HS384";
+            case "HmacSHA512" -> "HS512";
+            default -> throw new IllegalArgumentException("Unsupported HMAC key: " + key.getAlgorithm());
+        };
+        // Same header jjwt writes for an HMAC key without extra header fields
+        this.headerSegment = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(("{\"alg\":\"" + algorithm + "\"}").getBytes(StandardCharsets.US_ASCII));
+        this.headerBytes = headerSegment.getBytes(StandardCharsets.US_ASCII);
+        this.macs = ThreadLocal.withInitial(() -> newMac(key));
+        this.macLength = macs.get().getMacLength();
+    }
+
+    String encode(ClaimProfile profile, String tokenId, String subject, Long userId, String email, Role role,
+                  boolean refresh, Integer version, long issuedAtSeconds, long expiresAtSeconds) {
+        Scratch s = scratch.get();
+        Scratch.Buffer json = s.json.reset();
+        json.put('{');
+        json.stringMember("jti", tokenId, false);
+        json.stringMember("sub", subject, true);
+        if (userId != null) {
+            json.numberMember(profile.getUserIdKey(), userId);
+        }
+        if (profile.includesEmail(refresh)) {
+            json.stringMember("email", email, true);
+        }
+        if (role != null) {
+            json.stringMember(profile.getRoleKey(), profile.formatRole(role), false);
+        }
+        if (refresh) {
+            json.stringMember(profile.getTypeKey(), profile.getRefreshType(), false);
+        }
+        if (version != null) {
+            json.numberMember(profile.getVersionKey(), version);
+        }
+        if (profile == ClaimProfile.COMPACT) {
+            json.numberMember(ClaimProfile.COMPACT_MARKER, ClaimProfile.COMPACT_VERSION);
+        }
+        json.numberMember("iat", issuedAtSeconds);
+        json.numberMember("exp", expiresAtSeconds);
+        json.put('}');
+
+        Scratch.Buffer out = s.token.reset();
+        out.put(headerBytes, 0, headerBytes.length);
+        out.put('.');
+        out.base64Url(json.bytes, 0, json.length);
+        int signingInputLength = out.length;
+
+        Mac mac = macs.get();
+        mac.update(out.bytes, 0, signingInputLength);
+        byte[] signature = s.signature;
+        doFinal(mac, signature);
+
+        out.put('.');
+        out.base64Url(signature, 0, macLength);
+        return new String(out.bytes, 0, out.length, StandardCharsets.ISO_8859_1);
+    }
+
+    VerifiedToken decode(String token) {
+        int firstDot = token.indexOf('.');
+        int secondDot = firstDot < 0 ? -1 : token.indexOf('.', firstDot + 1);
+        if (firstDot != headerSegment.length() || secondDot < 0
+                || !token.regionMatches(0, headerSegment, 0, firstDot)) {
+            return null;
+        }
+
+        Scratch s = scratch.get();
+        Scratch.Buffer input = s.token.reset();
+        for (int i = 0; i < secondDot; i++) {
+            char c = token.charAt(i);
+            if (c > 0x7f) {
+                return null;
+            }
+            input.put((byte) c);
+        }
+
+        Mac mac = macs.get();
+        mac.update(input.bytes, 0, secondDot);
+        byte[] expected = s.signature;
+        doFinal(mac, expected);
+
+        Scratch.Buffer presented = s.json.reset();
+        if (!presented.decodeBase64Url(token, secondDot + 1, token.length())
+                || !constantTimeEquals(expected, presented.bytes, presented.length, macLength)) {
+            throw new SignatureException("JWT signature does not match locally computed signature");
+        }
+
+        Scratch.Buffer payload = s.json.reset();
+        if (!payload.decodeBase64Url(token, firstDot + 1, secondDot)) {
+            return null;
+        }
+        return ClaimsReader.read(payload.bytes, payload.length);
+    }
+
+    private static Mac newMac(SecretKey key) {
+        try {
+            Mac mac = Mac.getInstance(key.getAlgorithm());
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialise " + key.getAlgorithm(), e);
+        }
+    }
+
+    private static void doFinal(Mac mac, byte[] output) {
+        try {
+            mac.doFinal(output, 0);
+        } catch (ShortBufferException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean constantTimeEquals(byte[] expected, byte[] actual, int actualLength, int length) {
+        if (actualLength != length) {
+            return false;
+        }
+        int diff = 0;
+        for (int i = 0; i < length; i++) {
+            diff |= expected[i] ^ actual[i];
+        }
+        return diff == 0;
+    }
+
+    private static final class Scratch {
+        private final Buffer json = new Buffer(512);
+        private final Buffer token = new Buffer(1024);
+        private final byte[] signature = new byte[64];
+
+        private static final class Buffer {
+            private byte[] bytes;
+            private int length;
+
+            private Buffer(int capacity) {
+                this.bytes = new byte[capacity];
+            }
+
+            private Buffer reset() {
+                length = 0;
+                return this;
+            }
+
+            private void ensure(int extra) {
+                if (length + extra > bytes.length) {
+                    bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+                }
+            }
+
+            private void put(char c) {
+                put((byte) c);
+            }
+
+            private void put(byte b) {
+                ensure(1);
+                bytes[length++] = b;
+            }
+
+            private void put(byte[] source, int offset, int count) {
+                ensure(count);
+                System.arraycopy(source, offset, bytes, length, count);
+                length += count;
+            }
+
+            private void ascii(String value) {
+                ensure(value.length());
+                for (int i = 0; i < value.length(); i++) {
+                    bytes[length++] = (byte) value.charAt(i);
+                }
+            }
+
+            private void memberName(String name) {
+                if (bytes[length - 1] != '{') {
+                    put(',');
+                }
+                put('"');
+                ascii(name);
+                put('"');
+                put(':');
+            }
+
+            private void numberMember(String name, long value) {
+                memberName(name);
+                ascii(Long.toString(value));
+            }
+
+            private void stringMember(String name, String value, boolean optional) {
+                if (value == null) {
+                    if (optional) {
+                        return;
+                    }
+                    throw new IllegalArgumentException("Missing claim: " + name);
+                }
+                memberName(name);
+                put('"');
+                for (int i = 0; i < value.length(); i++) {
+                    char c = value.charAt(i);
+                    if (c == '"' || c == '\\') {
+                        put('\\');
+                        put(c);
+                    } else if (c < 0x20) {
+                        ascii(String.format("\\u%04x", (int) c));
+                    } else if (c < 0x80) {
+                        put(c);
+                    } else {
+                        // Rare in our claims; let the JDK handle surrogates and multi-byte sequences
+                        int end = i + 1;
+                        while (end < value.length() && value.charAt(end) >= 0x80) {
+                            end++;
+                        }
+                        byte[] utf8 = value.substring(i, end).getBytes(StandardCharsets.UTF_8);
+                        put(utf8, 0, utf8.length);
+                        i = end - 1;
+                    }
+                }
+                put('"');
+            }
+
+            private void base64Url(byte[] source, int offset, int count) {
+                ensure((count + 2) / 3 * 4);
+                int end = offset + count;
+                int i = offset;
+                while (end - i >= 3) {
+                    int bits = (source[i] & 0xff) << 16 | (source[i + 1] & 0xff) << 8 | (source[i + 2] & 0xff);
+                    bytes[length++] = BASE64_URL[bits >>> 18];
+                    bytes[length++] = BASE64_URL[(bits >>> 12) & 0x3f];
+                    bytes[length++] = BASE64_URL[(bits >>> 6) & 0x3f];
+                    bytes[length++] = BASE64_URL[bits & 0x3f];
+                    i += 3;
+                }
+                int remaining = end - i;
+                if (remaining == 1) {
+                    int bits = (source[i] & 0xff) << 16;
+                    bytes[length++] = BASE64_URL[bits >>> 18];
+                    bytes[length++] = BASE64_URL[(bits >>> 12) & 0x3f];
+                } else if (remaining == 2) {
+                    int bits = (source[i] & 0xff) << 16 | (source[i + 1] & 0xff) << 8;
+                    bytes[length++] = BASE64_URL[bits >>> 18];
+                    bytes[length++] = BASE64_URL[(bits >>> 12) & 0x3f];
+                    bytes[length++] = BASE64_URL[(bits >>> 6) & 0x3f];
+                }
+            }
+
+            /**
+             * Decodes unpadded base64url from {@code text[start, end)}; false on any invalid input.
+             */
+            private boolean decodeBase64Url(String text, int start, int end) {
+                int count = end - start;
+                if (count % 4 == 1) {
+                    return false;
+                }
+                ensure(count * 3 / 4 + 3);
+                int bits = 0;
+                int pending = 0;
+                for (int i = start; i < end; i++) {
+                    char c = text.charAt(i);
+                    int value = c < 128 ? BASE64_URL_INVERSE[c] : -1;
+                    if (value < 0) {
+                        return false;
+                    }
+                    bits = bits << 6 | value;
+                    pending += 6;
+                    if (pending >= 8) {
+                        pending -= 8;
+                        bytes[length++] = (byte) (bits >>> pending);
+                    }
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Reads the flat JSON object we emit. Anything else (nesting, arrays, booleans,
+     * fractions, unknown members) returns null and is left to jjwt.
+     */
+    private static final class ClaimsReader {
+        private final byte[] json;
+        private final int end;
+        private int position;
+
+        private ClaimsReader(byte[] json, int end) {
+            this.json = json;
+            this.end = end;
+        }
+
+        static VerifiedToken read(byte[] json, int length) {
+            return new ClaimsReader(json, length).read();
+        }
+
+        private VerifiedToken read() {
+            String tokenId = null;
+            String subject = null;
+            String email = null;
+            String role = null;
+            String type = null;
+            Long userId = null;
+            Integer version = null;
+            long profileVersion = -1;
+            long issuedAt = -1;
+            long expiresAt = -1;
+
+            skipWhitespace();
+            if (!consume('{')) {
+                return null;
+            }
+            skipWhitespace();
+            if (consume('}')) {
+                return null;
+            }
+            do {
+                skipWhitespace();
+                String name = readString();
+                skipWhitespace();
+                if (name == null || !consume(':')) {
+                    return null;
+                }
+                skipWhitespace();
+                switch (name) {
+                    case "jti" -> tokenId = readString();
+                    case "sub" -> subject = readString();
+                    case "email" -> email = readString();
+                    case "role", "rl" -> role = readString();
+                    case "type", "t" -> type = readString();
+                    case "userId", "uid" -> userId = readLong();
+                    case ClaimProfile.COMPACT_MARKER -> profileVersion = orMissing(readLong());
+                    case "ver", "v" -> {
+                        Long value = readLong();
+                        if (value == null || value != value.intValue()) {
+                            return null;
+                        }
+                        version = value.intValue();
+                    }
+                    case "iat" -> issuedAt = orMissing(readLong());
+                    case "exp" -> expiresAt = orMissing(readLong());
+                    default -> {
+                        return null;
+                    }
+                }
+                if (position < 0) {
+                    return null;
+                }
+                skipWhitespace();
+            } while (consume(','));
+
+            skipWhitespace();
+            if (!consume('}') || position != end || expiresAt < 0) {
+                return null;
+            }
+            if (expiresAt * 1000 <= System.currentTimeMillis()) {
+                // Leave expired tokens to jjwt so they surface as ExpiredJwtException
+                return null;
+            }
+            if (profileVersion >= 0 && profileVersion != ClaimProfile.COMPACT_VERSION) {
+                return null;
+            }
+            ClaimProfile profile = profileVersion >= 0 ? ClaimProfile.COMPACT : ClaimProfile.STANDARD;
+            Role parsedRole;
+            try {
+                parsedRole = profile.parseRole(role);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+
+            return VerifiedToken.builder()
+                    .tokenId(tokenId)
+                    .subject(subject)
+                    .userId(userId)
+                    .email(email)
+                    .role(parsedRole)
+                    .type(profile.parseType(type))
+                    .tokenVersion(version)
+                    .issuedAt(issuedAt >= 0 ? new Date(issuedAt * 1000) : null)
+                    .expiration(new Date(expiresAt * 1000))
+                    .build();
+        }
+
+        private long orMissing(Long value) {
+            if (value == null || value < 0) {
+                position = -1;
+                return -1;
+            }
+            return value;
+        }
+
+        private boolean consume(char expected) {
+            if (position >= 0 && position < end && json[position] == expected) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void skipWhitespace() {
+            while (position >= 0 && position < end) {
+                byte b = json[position];
+                if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                    return;
+                }
+                position++;
+            }
+        }
+
+        private Long readLong() {
+            if (position < 0) {
+                return null;
+            }
+            boolean negative = consume('-');
+            int start = position;
+            long value = 0;
+            while (position < end && json[position] >= '0' && json[position] <= '9' && position - start < 18) {
+                value = value * 10 + (json[position] - '0');
+                position++;
+            }
+            if (position == start || (position < end && (json[position] == '.' || json[position] == 'e'
+                    || json[position] == 'E' || (json[position] >= '0' && json[position] <= '9')))) {
+                position = -1;
+                return null;
+            }
+            return negative ? -value : value;
+        }
+
+        private String readString() {
+            if (!consume('"')) {
+                position = -1;
+                return null;
+            }
+            int start = position;
+            while (position < end && json[position] != '"') {
+                if (json[position] == '\\') {
+                    return readEscapedString(start);
+                }
+                position++;
+            }
+            if (position >= end) {
+                position = -1;
+                return null;
+            }
+            String value = new String(json, start, position - start, StandardCharsets.UTF_8);
+            position++;
+            return value;
+        }
+
+        private String readEscapedString(int start) {
+            StringBuilder value = new StringBuilder(new String(json, start, position - start, StandardCharsets.UTF_8));
+            int runStart = position;
+            while (position < end && json[position] != '"') {
+                if (json[position] != '\\') {
+                    position++;
+                    continue;
+                }
+                value.append(new String(json, runStart, position - runStart, StandardCharsets.UTF_8));
+                if (position + 1 >= end) {
+                    position = -1;
+                    return null;
+                }
+                byte escaped = json[position + 1];
+                switch (escaped) {
+                    case '"', '\\', '/' -> value.append((char) escaped);
+                    case 'b' -> value.append('\b');
+                    case 'f' -> value.append('\f');
+                    case 'n' -> value.append('\n');
+                    case 'r' -> value.append('\r');
+                    case 't' -> value.append('\t');
+                    case 'u' -> {
+                        if (position + 6 > end) {
+                            position = -1;
+                            return null;
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(
+                                    new String(json, position + 2, 4, StandardCharsets.US_ASCII), 16));
+                        } catch (NumberFormatException e) {
+                            position = -1;
+                            return null;
+                        }
+                        position += 4;
+                    }
+                    default -> {
+                        position = -1;
+                        return null;
+                    }
+                }
+                position += 2;
+                runStart = position;
+            }
+            if (position >= end) {
+                position = -1;
+                return null;
+            }
+            value.append(new String(json, runStart, position - runStart, StandardCharsets.UTF_8));
+            position++;
+            return value.toString();
+        }
+    }
+}
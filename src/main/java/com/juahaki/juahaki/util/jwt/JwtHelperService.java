@@ -3,6 +3,9 @@ package com.juahaki.juahaki.util.jwt;
 import com.juahaki.juahaki.enums.Role;
 import com.juahaki.juahaki.exception.CustomException;
 import com.juahaki.juahaki.model.user.User;
+import com.juahaki.juahaki.service.token.IRefreshTokenService;
+import com.juahaki.juahaki.service.token.ITokenRevocationService;
+import com.juahaki.juahaki.service.token.ITokenVersionService;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import jakarta.servlet.http.HttpServletRequest;
@@ -15,6 +18,9 @@ import lombok.extern.slf4j.Slf4j;
 public class JwtHelperService {
 
     private final JwtUtil jwtUtil;
+    private final ITokenRevocationService tokenRevocationService;
+    private final ITokenVersionService tokenVersionService;
+    private final IRefreshTokenService refreshTokenService;
 
     /**
      * Extract JWT token from Authorization header
@@ -27,6 +33,38 @@ public class JwtHelperService {
         throw new CustomException("Authorization token is required");
     }
 
+    /**
+     * Verify the request token once and return its claims
+     */
+    public VerifiedToken getVerifiedTokenFromRequest(HttpServletRequest request) {
+        String token = extractTokenFromRequest(request);
+        return getVerifiedToken(token);
+    }
+
+    /**
+     * Verify a token once and return its claims
+     */
+    public VerifiedToken getVerifiedToken(String token) {
+        return jwtUtil.verifyToken(token)
+                .orElseThrow(() -> new CustomException("Invalid or expired token"));
+    }
+
+    /**
+     * Revoke a token until its expiry; invalid or already expired tokens are ignored.
+     * Revoking a refresh token also ends every token rotated from the same login.
+     */
+    public void revokeToken(String token) {
+        if (!StringUtils.hasText(token)) {
+            return;
+        }
+        jwtUtil.verifyToken(token, false).ifPresent(verifiedToken -> {
+            tokenRevocationService.revoke(verifiedToken);
+            if (verifiedToken.isRefreshToken()) {
+                refreshTokenService.revokeFamily(verifiedToken);
+            }
+        });
+    }
+
     /**
      * Get current user ID from request token
      */
@@ -40,11 +78,7 @@ public class JwtHelperService {
      */
     public Long getCurrentUserIdFromToken(String token) {
         try {
-            if (!jwtUtil.validateToken(token)) {
-                throw new CustomException("Invalid or expired token");
-            }
-
-            Long userId = jwtUtil.getUserIdFromToken(token);
+            Long userId = getVerifiedToken(token).getUserId();
             if (userId == null) {
                 throw new CustomException("User ID not found in token");
             }
@@ -68,10 +102,7 @@ public class JwtHelperService {
      */
     public String getCurrentUsernameFromToken(String token) {
         try {
-            if (!jwtUtil.validateToken(token)) {
-                throw new CustomException("Invalid or expired token");
-            }
-            return jwtUtil.getUsernameFromToken(token);
+            return getVerifiedToken(token).getSubject();
         } catch (Exception e) {
             log.error("Error extracting username from token: {}", e.getMessage());
             throw new CustomException("Failed to extract username from token");
@@ -91,10 +122,7 @@ public class JwtHelperService {
      */
     public String getCurrentUserEmailFromToken(String token) {
         try {
-            if (!jwtUtil.validateToken(token)) {
-                throw new CustomException("Invalid or expired token");
-            }
-            return jwtUtil.getEmailFromToken(token);
+            return getVerifiedToken(token).getEmail();
         } catch (Exception e) {
             log.error("Error extracting email from token: {}", e.getMessage());
             throw new CustomException("Failed to extract email from token");
@@ -114,10 +142,7 @@ public class JwtHelperService {
      */
     public Role getCurrentUserRoleFromToken(String token) {
         try {
-            if (!jwtUtil.validateToken(token)) {
-                throw new CustomException("Invalid or expired token");
-            }
-            Role role = jwtUtil.getRoleFromToken(token);
+            Role role = getVerifiedToken(token).getRole();
             if (role == null) {
                 throw new CustomException("Role not found in token");
             }
@@ -133,8 +158,7 @@ public class JwtHelperService {
      */
     public boolean hasRole(HttpServletRequest request, Role role) {
         try {
-            String token = extractTokenFromRequest(request);
-            return jwtUtil.hasRole(token, role);
+            return getVerifiedTokenFromRequest(request).hasRole(role);
         } catch (Exception e) {
             log.error("Error checking role: {}", e.getMessage());
             return false;
@@ -185,9 +209,8 @@ public class JwtHelperService {
      */
     public boolean validateTokenOwnershipAndRole(String token, Long expectedUserId, Role requiredRole) {
         try {
-            Long tokenUserId = getCurrentUserIdFromToken(token);
-            Role tokenRole = getCurrentUserRoleFromToken(token);
-            return tokenUserId.equals(expectedUserId) && tokenRole.equals(requiredRole);
+            VerifiedToken verifiedToken = getVerifiedToken(token);
+            return expectedUserId.equals(verifiedToken.getUserId()) && verifiedToken.hasRole(requiredRole);
         } catch (Exception e) {
             log.error("Error validating token ownership and role: {}", e.getMessage());
             return false;
@@ -199,17 +222,15 @@ public class JwtHelperService {
      */
     public boolean canAccessResource(HttpServletRequest request, Long resourceUserId) {
         try {
-            String token = extractTokenFromRequest(request);
-            Long currentUserId = getCurrentUserIdFromToken(token);
-            Role currentRole = getCurrentUserRoleFromToken(token);
+            VerifiedToken verifiedToken = getVerifiedTokenFromRequest(request);
 
             // Admin can access everything
-            if (currentRole == Role.ADMIN) {
+            if (verifiedToken.hasRole(Role.ADMIN)) {
                 return true;
             }
 
             // User can only access their own resources
-            return currentUserId.equals(resourceUserId);
+            return resourceUserId != null && resourceUserId.equals(verifiedToken.getUserId());
         } catch (Exception e) {
             log.error("Error checking resource access: {}", e.getMessage());
             return false;
@@ -222,8 +243,11 @@ public class JwtHelperService {
      */
     public String[] generateTokenPair(User user) {
         try {
+            String refreshTokenId = jwtUtil.newTokenId();
+            refreshTokenService.startFamily(user.getId(), refreshTokenId);
+
             String accessToken = jwtUtil.generateAccessToken(user);
-            String refreshToken = jwtUtil.generateRefreshToken(user);
+            String refreshToken = jwtUtil.generateRefreshToken(user, refreshTokenId);
             return new String[] { accessToken, refreshToken };
         } catch (Exception e) {
             log.error("Error generating token pair for user {}: {}", user.getId(), e.getMessage());
@@ -232,26 +256,44 @@ public class JwtHelperService {
     }
 
 
-    public String[] refreshTokenPair(String refreshToken, User user) {
-        try {
-            if (!jwtUtil.validateToken(refreshToken)) {
-                throw new CustomException("Invalid or expired refresh token");
-            }
+    /**
+     * Verify a refresh token: signature, type, revocation and token version
+     */
+    public VerifiedToken verifyRefreshToken(String refreshToken) {
+        VerifiedToken verifiedToken = jwtUtil.verifyToken(refreshToken, false)
+                .orElseThrow(() -> new CustomException("Invalid or expired refresh token"));
 
-            if (!jwtUtil.isRefreshToken(refreshToken)) {
-                throw new CustomException("Token is not a refresh token");
-            }
+        if (!verifiedToken.isRefreshToken()) {
+            throw new CustomException("Token is not a refresh token");
+        }
 
-            // Validate that the refresh token belongs to the user
-            Long tokenUserId = jwtUtil.getUserIdFromToken(refreshToken);
-            if (!user.getId().equals(tokenUserId)) {
-                throw new CustomException("Refresh token does not belong to the user");
-            }
+        if (tokenRevocationService.isRevoked(verifiedToken)) {
+            throw new CustomException("Refresh token has been revoked");
+        }
+
+        if (verifiedToken.getRole() == null || !tokenVersionService.isCurrent(verifiedToken)) {
+            throw new CustomException("Refresh token is no longer valid");
+        }
+
+        return verifiedToken;
+    }
+
+    /**
+     * Rotate an already verified refresh token and issue a new pair without loading the user.
+     * The presented token is spent; presenting it again revokes the whole family.
+     * Returns array: [accessToken, refreshToken]
+     */
+    public String[] refreshTokenPair(VerifiedToken refreshToken) {
+        try {
+            String newRefreshTokenId = jwtUtil.newTokenId();
+            refreshTokenService.rotate(refreshToken, newRefreshTokenId);
 
-            String newAccessToken = jwtUtil.generateAccessToken(user);
-            String newRefreshToken = jwtUtil.generateRefreshToken(user);
+            String newAccessToken = jwtUtil.generateAccessToken(refreshToken);
+            String newRefreshToken = jwtUtil.generateRefreshToken(refreshToken, newRefreshTokenId);
 
             return new String[] { newAccessToken, newRefreshToken };
+        } catch (CustomException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error refreshing token pair: {}", e.getMessage());
             throw new CustomException("Failed to refresh token pair");
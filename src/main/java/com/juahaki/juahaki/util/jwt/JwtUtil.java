@@ -4,21 +4,37 @@ import com.juahaki.juahaki.enums.Role;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.security.Key;
+import java.security.PublicKey;
+import java.util.Base64;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Service
 @Slf4j
 public class JwtUtil {
 
+    private final TokenPreScreener tokenPreScreener;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final MeterRegistry meterRegistry;
+    private final SigningKeyRing signingKeyRing;
+    private final Map<ClaimProfile, DistributionSummary> accessTokenSizes = new EnumMap<>(ClaimProfile.class);
+    private final Map<ClaimProfile, DistributionSummary> refreshTokenSizes = new EnumMap<>(ClaimProfile.class);
+
     @Value("${app.jwtSecret}")
     private String jwtSecret;
 
@@ -28,81 +44,194 @@ public class JwtUtil {
     @Value("${app.jwtRefreshExpirationMs}")
     private int jwtRefreshExpirationMs;
 
+    @Value("${app.jwt.fast-codec.enabled:true}")
+    private boolean fastCodecEnabled;
+
+    @Value("${app.jwt.claims.profile:STANDARD}")
+    private ClaimProfile claimProfile;
+
+    private volatile SigningMaterial signingMaterial;
+
+    public JwtUtil(TokenPreScreener tokenPreScreener, VerifiedTokenCache verifiedTokenCache,
+                   MeterRegistry meterRegistry, SigningKeyRing signingKeyRing) {
+        this.tokenPreScreener = tokenPreScreener;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.meterRegistry = meterRegistry;
+        this.signingKeyRing = signingKeyRing;
+        for (ClaimProfile profile : ClaimProfile.values()) {
+            accessTokenSizes.put(profile, tokenSizeSummary("access", profile));
+            refreshTokenSizes.put(profile, tokenSizeSummary("refresh", profile));
+        }
+    }
+
+    private DistributionSummary tokenSizeSummary(String type, ClaimProfile profile) {
+        return DistributionSummary.builder("jwt.token.size")
+                .description("Size of issued tokens")
+                .baseUnit("bytes")
+                .tag("type", type)
+                .tag("profile", profile.name().toLowerCase())
+                .register(meterRegistry);
+    }
+
     private SecretKey getSigningKey() {
-        byte[] secretBytes = Decoders.BASE64.decode(jwtSecret);
-        return Keys.hmacShaKeyFor(secretBytes);
+        return getSigningMaterial().key;
     }
 
-    public String generateAccessToken(UserDetails userDetails) {
-        Map<String, Object> claims = new HashMap<>();
+    private JwtParser getParser() {
+        return getSigningMaterial().parser;
+    }
 
-        if (userDetails instanceof com.juahaki.juahaki.model.user.User user) {
-            claims.put("userId", user.getId());
-            claims.put("email", user.getEmail());
-            claims.put("role", user.getRole().name());
+    /**
+     * Key and parser are built once and reused; they are only rebuilt if the
+     * configured secret changes. JwtParser is immutable and thread-safe.
+     * The parser picks the verification key from the header: HMAC tokens use the
+     * shared secret, asymmetric ones the {@link SigningKeyRing} key for their kid.
+     */
+    private SigningMaterial getSigningMaterial() {
+        SigningMaterial current = signingMaterial;
+        if (current != null && current.secret.equals(jwtSecret)) {
+            return current;
+        }
+        synchronized (this) {
+            if (signingMaterial == null || !signingMaterial.secret.equals(jwtSecret)) {
+                signingMaterial = new SigningMaterial(jwtSecret, signingKeyRing);
+            }
+            return signingMaterial;
         }
+    }
 
-        return createToken(claims, userDetails.getUsername(), jwtExpirationMs);
+    public String generateAccessToken(UserDetails userDetails) {
+        return createToken(newTokenId(), userDetails, false, jwtExpirationMs);
     }
 
     public String generateRefreshToken(UserDetails userDetails) {
-        Map<String, Object> claims = new HashMap<>();
-        claims.put("type", "refresh");
+        return generateRefreshToken(userDetails, newTokenId());
+    }
 
+    /**
+     * Fresh jti: a UUID in the standard profile, its 22-character base64url form in the compact one
+     */
+    public String newTokenId() {
+        UUID uuid = UUID.randomUUID();
+        if (claimProfile != ClaimProfile.COMPACT) {
+            return uuid.toString();
+        }
+        ByteBuffer bytes = ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.array());
+    }
+
+    /**
+     * @param tokenId jti to embed, so the caller can record the token before handing it out
+     */
+    public String generateRefreshToken(UserDetails userDetails, String tokenId) {
+        return createToken(tokenId, userDetails, true, jwtRefreshExpirationMs);
+    }
+
+    /**
+     * Mint an access token from the claims of a verified refresh token. Only safe once
+     * the token's version has been checked, since any change to role or credentials bumps it.
+     */
+    public String generateAccessToken(VerifiedToken source) {
+        return createToken(newTokenId(), source.getSubject(), source.getUserId(), source.getEmail(),
+                source.getRole(), false, source.getTokenVersionOrDefault(), jwtExpirationMs);
+    }
+
+    public String generateRefreshToken(VerifiedToken source, String tokenId) {
+        return createToken(tokenId, source.getSubject(), source.getUserId(), source.getEmail(),
+                source.getRole(), true, source.getTokenVersionOrDefault(), jwtRefreshExpirationMs);
+    }
+
+    private String createToken(String tokenId, UserDetails userDetails, boolean refresh, int expirationMs) {
         if (userDetails instanceof com.juahaki.juahaki.model.user.User user) {
-            claims.put("userId", user.getId());
-            claims.put("email", user.getEmail());
-            claims.put("role", user.getRole().name());
+            return createToken(tokenId, user.getUsername(), user.getId(), user.getEmail(),
+                    user.getRole(), refresh, user.getTokenVersion(), expirationMs);
         }
+        return createToken(tokenId, userDetails.getUsername(), null, null, null, refresh, null, expirationMs);
+    }
 
-        return createToken(claims, userDetails.getUsername(), jwtRefreshExpirationMs);
+    private String createToken(String tokenId, String subject, Long userId, String email, Role role,
+                               boolean refresh, Integer version, int expirationMs) {
+        String token = encodeToken(tokenId, subject, userId, email, role, refresh, version, expirationMs);
+        (refresh ? refreshTokenSizes : accessTokenSizes).get(claimProfile).record(token.length());
+        return token;
     }
 
-    private String createToken(Map<String, Object> claims, String subject, int expirationMs) {
-        Date now = new Date();
-        Date expiration = new Date(now.getTime() + expirationMs);
-        return Jwts.builder()
+    /**
+     * HMAC tokens go through {@link HmacTokenCodec}; jjwt is used for asymmetric keys
+     * or when {@code app.jwt.fast-codec.enabled} is off. Both produce the same token.
+     */
+    private String encodeToken(String tokenId, String subject, Long userId, String email, Role role,
+                               boolean refresh, Integer version, int expirationMs) {
+        ClaimProfile profile = claimProfile;
+        long nowMs = System.currentTimeMillis();
+        long expirationMsEpoch = nowMs + expirationMs;
+        if (fastCodecEnabled && !signingKeyRing.isAsymmetric()) {
+            return getSigningMaterial().codec.encode(profile, tokenId, subject, userId, email, role, refresh, version,
+                    nowMs / 1000, expirationMsEpoch / 1000);
+        }
+
+        Map<String, Object> claims = new HashMap<>();
+        putIfNotNull(claims, profile.getUserIdKey(), userId);
+        if (profile.includesEmail(refresh)) {
+            putIfNotNull(claims, "email", email);
+        }
+        if (role != null) {
+            claims.put(profile.getRoleKey(), profile.formatRole(role));
+        }
+        if (refresh) {
+            claims.put(profile.getTypeKey(), profile.getRefreshType());
+        }
+        putIfNotNull(claims, profile.getVersionKey(), version);
+        if (profile == ClaimProfile.COMPACT) {
+            claims.put(ClaimProfile.COMPACT_MARKER, ClaimProfile.COMPACT_VERSION);
+        }
+
+        JwtBuilder builder = Jwts.builder()
+                .id(tokenId)
                 .claims(claims)
                 .subject(subject)
-                .issuedAt(now)
-                .expiration(expiration)
-                .signWith(getSigningKey())
-                .compact();
+                .issuedAt(new Date(nowMs))
+                .expiration(new Date(expirationMsEpoch));
+
+        if (signingKeyRing.isAsymmetric()) {
+            return builder
+                    .header().keyId(signingKeyRing.getActiveKid()).and()
+                    .signWith(signingKeyRing.getActivePrivateKey(), signingKeyRing.getSignatureAlgorithm())
+                    .compact();
+        }
+        return builder.signWith(getSigningKey()).compact();
+    }
+
+    private static void putIfNotNull(Map<String, Object> claims, String name, Object value) {
+        if (value != null) {
+            claims.put(name, value);
+        }
     }
 
     public String getUsernameFromToken(String token) {
-        return getClaimsFromToken(token, Claims::getSubject);
+        return parseToken(token).getSubject();
     }
 
     public Long getUserIdFromToken(String token) {
-        return getClaimsFromToken(token, claims -> {
-            Object userId = claims.get("userId");
-            if (userId instanceof Integer) {
-                return ((Integer) userId).longValue();
-            } else if (userId instanceof Long) {
-                return (Long) userId;
-            }
-            return null;
-        });
+        return parseToken(token).getUserId();
     }
 
     public String getEmailFromToken(String token) {
-        return getClaimsFromToken(token, claims -> (String) claims.get("email"));
+        return parseToken(token).getEmail();
     }
 
     public Role getRoleFromToken(String token) {
-        return getClaimsFromToken(token, claims -> {
-            String roleName = (String) claims.get("role");
-            return roleName != null ? Role.fromString(roleName) : null;
-        });
+        return parseToken(token).getRole();
     }
 
     public String getTokenType(String token) {
-        return getClaimsFromToken(token, claims -> (String) claims.get("type"));
+        return parseToken(token).getType();
     }
 
     public Date getExpirationDateFromToken(String token) {
-        return getClaimsFromToken(token, Claims::getExpiration);
+        return parseToken(token).getExpiration();
     }
 
     public <T> T getClaimsFromToken(String token, Function<Claims, T> claimsResolver) {
@@ -111,53 +240,133 @@ public class JwtUtil {
     }
 
     private Claims getAllClaimsFromToken(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
+        return getParser()
                 .parseSignedClaims(token)
                 .getPayload();
     }
 
-    public Boolean isTokenExpired(String token) {
-        final Date expiration = getExpirationDateFromToken(token);
-        return expiration.before(new Date());
+    /**
+     * Verify signature and expiry once and return every claim we use.
+     * Throws {@link JwtException} when the token cannot be trusted.
+     */
+    public VerifiedToken parseToken(String token) {
+        if (fastCodecEnabled && signingKeyRing.acceptsHmac()) {
+            VerifiedToken decoded = getSigningMaterial().codec.decode(token);
+            if (decoded != null) {
+                return decoded;
+            }
+        }
+        return toVerifiedToken(getAllClaimsFromToken(token));
     }
 
-    public Boolean validateToken(String token) {
+    /**
+     * Same as {@link #parseToken(String)} but returns empty instead of throwing.
+     * Structurally hopeless tokens are rejected by {@link TokenPreScreener} before any
+     * crypto; failures are counted in {@code jwt.validation.failed} and only logged at debug
+     * so scanner traffic cannot flood the logs.
+     */
+    public Optional<VerifiedToken> verifyToken(String token) {
+        return verifyToken(token, true);
+    }
+
+    /**
+     * @param useCache whether a previously verified access token may be served from
+     *                 {@link VerifiedTokenCache}; refresh flows pass false
+     */
+    public Optional<VerifiedToken> verifyToken(String token, boolean useCache) {
+        if (useCache) {
+            VerifiedToken cached = verifiedTokenCache.get(token);
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+        }
+
+        TokenPreScreener.Rejection rejection = tokenPreScreener.screen(token);
+        if (rejection != null) {
+            log.debug("JWT rejected by pre-screen: {}", rejection);
+            return Optional.empty();
+        }
+
         try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
-            return !isTokenExpired(token);
+            VerifiedToken verifiedToken = parseToken(token);
+            if (useCache) {
+                verifiedTokenCache.put(token, verifiedToken);
+            }
+            return Optional.of(verifiedToken);
         } catch (MalformedJwtException e) {
-            log.error("Invalid JWT token: {}", e.getMessage());
+            recordValidationFailure("malformed", e);
         } catch (ExpiredJwtException e) {
-            log.error("JWT token is expired: {}", e.getMessage());
+            recordValidationFailure("expired", e);
         } catch (UnsupportedJwtException e) {
-            log.error("JWT token is unsupported: {}", e.getMessage());
+            recordValidationFailure("unsupported", e);
         } catch (IllegalArgumentException e) {
-            log.error("JWT claims string is empty: {}", e.getMessage());
+            recordValidationFailure("empty", e);
         } catch (Exception e) {
-            log.error("JWT validation error: {}", e.getMessage());
+            recordValidationFailure("invalid", e);
         }
-        return false;
+        return Optional.empty();
     }
 
-    public Boolean validateUserToken(String token, UserDetails userDetails) {
-        try {
-            final String username = getUsernameFromToken(token);
-            return (username.equals(userDetails.getUsername()) && validateToken(token));
-        } catch (Exception e) {
-            log.error("Error validating user token: {}", e.getMessage());
-            return false;
+    private void recordValidationFailure(String reason, Exception e) {
+        meterRegistry.counter("jwt.validation.failed", "reason", reason).increment();
+        log.debug("JWT validation failed ({}): {}", reason, e.getMessage());
+    }
+
+    private VerifiedToken toVerifiedToken(Claims claims) {
+        ClaimProfile profile = ClaimProfile.STANDARD;
+        Integer profileVersion = claims.get(ClaimProfile.COMPACT_MARKER, Integer.class);
+        if (profileVersion != null) {
+            if (profileVersion != ClaimProfile.COMPACT_VERSION) {
+                throw new UnsupportedJwtException("Unsupported claim profile version: " + profileVersion);
+            }
+            profile = ClaimProfile.COMPACT;
+        }
+        return VerifiedToken.builder()
+                .tokenId(claims.getId())
+                .subject(claims.getSubject())
+                .userId(toLong(claims.get(profile.getUserIdKey())))
+                .email(claims.get("email", String.class))
+                .role(profile.parseRole(claims.get(profile.getRoleKey(), String.class)))
+                .type(profile.parseType(claims.get(profile.getTypeKey(), String.class)))
+                .tokenVersion(claims.get(profile.getVersionKey(), Integer.class))
+                .issuedAt(claims.getIssuedAt())
+                .expiration(claims.getExpiration())
+                .build();
+    }
+
+    private Long toLong(Object value) {
+        if (value instanceof Integer) {
+            return ((Integer) value).longValue();
+        } else if (value instanceof Long) {
+            return (Long) value;
         }
+        return null;
+    }
+
+    public Boolean isTokenExpired(String token) {
+        final Date expiration = getExpirationDateFromToken(token);
+        return expiration.before(new Date());
+    }
+
+    public Boolean validateToken(String token) {
+        return verifyToken(token).isPresent();
+    }
+
+    public Boolean validateUserToken(String token, UserDetails userDetails) {
+        return verifyToken(token)
+                .map(verifiedToken -> validateUserToken(verifiedToken, userDetails))
+                .orElse(false);
+    }
+
+    public Boolean validateUserToken(VerifiedToken verifiedToken, UserDetails userDetails) {
+        return verifiedToken.getSubject() != null
+                && verifiedToken.getSubject().equals(userDetails.getUsername())
+                && !verifiedToken.isExpired();
     }
 
     public Boolean isRefreshToken(String token) {
         try {
-            String tokenType = getTokenType(token);
-            return "refresh".equals(tokenType);
+            return parseToken(token).isRefreshToken();
         } catch (Exception e) {
             return false;
         }
@@ -165,8 +374,7 @@ public class JwtUtil {
 
     public Boolean hasRole(String token, Role role) {
         try {
-            Role tokenRole = getRoleFromToken(token);
-            return tokenRole != null && tokenRole.equals(role);
+            return parseToken(token).hasRole(role);
         } catch (Exception e) {
             log.error("Error checking role from token: {}", e.getMessage());
             return false;
@@ -180,4 +388,38 @@ public class JwtUtil {
     public Boolean isUser(String token) {
         return hasRole(token, Role.USER);
     }
-}
\ No newline at end of file
+
+    private static final class SigningMaterial {
+        private final String secret;
+        private final SecretKey key;
+        private final JwtParser parser;
+        private final HmacTokenCodec codec;
+
+        private SigningMaterial(String secret, SigningKeyRing keyRing) {
+            this.secret = secret;
+            this.key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+            this.parser = Jwts.parser()
+                    .keyLocator(header -> locateKey(header, key, keyRing))
+                    .build();
+            this.codec = new HmacTokenCodec(key);
+        }
+
+        private static Key locateKey(Header header, SecretKey hmacKey, SigningKeyRing keyRing) {
+            if (!(header instanceof JwsHeader jwsHeader)) {
+                throw new UnsupportedJwtException("Unsigned tokens are not accepted");
+            }
+            String algorithm = jwsHeader.getAlgorithm();
+            if (algorithm != null && algorithm.startsWith("HS")) {
+                if (!keyRing.acceptsHmac()) {
+                    throw new UnsupportedJwtException("HMAC-signed tokens are no longer accepted");
+                }
+                return hmacKey;
+            }
+            PublicKey publicKey = keyRing.getPublicKey(jwsHeader.getKeyId());
+            if (publicKey == null) {
+                throw new UnsupportedJwtException("Unknown signing key id");
+            }
+            return publicKey;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.juahaki.juahaki.util.jwt;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Asymmetric signing keys for access and refresh tokens. With {@code app.jwt.signing.algorithm}
+ * set to ES256 or EdDSA, keys are read from {@code key-location}: {@code <kid>.pub} (X.509 PEM)
+ * for every key that should still verify, plus {@code <kid>.key} (PKCS#8 PEM) for the active one.
+ * <p>
+ * To rotate, add the new pair, switch {@code active-kid}, and delete the old {@code .pub} once
+ * the longest-lived token signed with it has expired. The public keys are published through
+ * {@code /.well-known/jwks.json} as a pre-serialized document so other services verify locally.
+ */
+@Component
+@Slf4j
+public class SigningKeyRing {
+
+    private static final Pattern KID_PATTERN = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    @Value("${app.jwt.signing.algorithm:HS256}")
+    private String algorithm;
+
+    @Value("${app.jwt.signing.key-location:}")
+    private String keyLocation;
+
+    @Value("${app.jwt.signing.active-kid:}")
+    private String activeKid;
+
+    // Keep verifying HS256 tokens issued before the switch until they have expired
+    @Value("${app.jwt.signing.accept-hmac:true}")
+    private boolean acceptHmac;
+
+    private Map<String, PublicKey> publicKeys = Map.of();
+    private PrivateKey activePrivateKey;
+    private SignatureAlgorithm signatureAlgorithm;
+    private byte[] jwks;
+    private String jwksEtag;
+
+    @PostConstruct
+    public void load() throws IOException, GeneralSecurityException {
+        switch (algorithm) {
+            case "HS256" -> signatureAlgorithm = null;
+            case "ES256" -> signatureAlgorithm = Jwts.SIG.ES256;
+            case "EdDSA" -> signatureAlgorithm = Jwts.SIG.EdDSA;
+            default -> throw new IllegalStateException("Unsupported app.jwt.signing.algorithm: " + algorithm);
+        }
+
+        if (isAsymmetric()) {
+            loadKeys();
+        }
+
+        jwks = serializeJwks().getBytes(StandardCharsets.UTF_8);
+        jwksEtag = "\"" + Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Arrays.copyOf(MessageDigest.getInstance("SHA-256").digest(jwks), 16)) + "\"";
+        log.info("JWT signing algorithm {} with {} published key(s)", algorithm, publicKeys.size());
+    }
+
+    public boolean isAsymmetric() {
+        return signatureAlgorithm != null;
+    }
+
+    public boolean acceptsHmac() {
+        return !isAsymmetric() || acceptHmac;
+    }
+
+    public String getActiveKid() {
+        return activeKid;
+    }
+
+    public PrivateKey getActivePrivateKey() {
+        return activePrivateKey;
+    }
+
+    public SignatureAlgorithm getSignatureAlgorithm() {
+        return signatureAlgorithm;
+    }
+
+    public PublicKey getPublicKey(String kid) {
+        return kid != null ? publicKeys.get(kid) : null;
+    }
+
+    public byte[] getJwks() {
+        return jwks;
+    }
+
+    public String getJwksEtag() {
+        return jwksEtag;
+    }
+
+    private void loadKeys() throws IOException, GeneralSecurityException {
+        if (!StringUtils.hasText(keyLocation) || !StringUtils.hasText(activeKid)) {
+            throw new IllegalStateException("app.jwt.signing.key-location and active-kid are required for " + algorithm);
+        }
+        KeyFactory keyFactory = KeyFactory.getInstance(isEdDsa() ? "Ed25519" : "EC");
+        Path directory = Path.of(keyLocation);
+
+        Map<String, PublicKey> keys = new LinkedHashMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.pub")) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                String kid = fileName.substring(0, fileName.length() - ".pub".length());
+                if (!KID_PATTERN.matcher(kid).matches()) {
+                    throw new IllegalStateException("Invalid key id in file name: " + fileName);
+                }
+                PublicKey publicKey = keyFactory.generatePublic(new X509EncodedKeySpec(readPem(file)));
+                if (publicKey instanceof ECPublicKey ecKey
+                        && ecKey.getParams().getCurve().getField().getFieldSize() != 256) {
+                    throw new IllegalStateException("ES256 requires a P-256 key: " + fileName);
+                }
+                keys.put(kid, publicKey);
+            }
+        }
+        if (!keys.containsKey(activeKid)) {
+            throw new IllegalStateException("No public key found for active kid: " + activeKid);
+        }
+
+        publicKeys = Map.copyOf(keys);
+        activePrivateKey = keyFactory.generatePrivate(
+                new PKCS8EncodedKeySpec(readPem(directory.resolve(activeKid + ".key"))));
+    }
+
+    private boolean isEdDsa() {
+        return signatureAlgorithm == Jwts.SIG.EdDSA;
+    }
+
+    private static byte[] readPem(Path file) throws IOException {
+        String body = Files.readString(file, StandardCharsets.US_ASCII)
+                .replaceAll("-----[A-Z ]+-----", "")
+                .replaceAll("\\s", "");
+        return Base64.getDecoder().decode(body);
+    }
+
+    private String serializeJwks() {
+        StringBuilder json = new StringBuilder("{\"keys\":[");
+        boolean first = true;
+        for (Map.Entry<String, PublicKey> entry : publicKeys.entrySet()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            json.append("{\"kid\":\"").append(entry.getKey()).append("\",\"use\":\"sig\",\"alg\":\"").append(algorithm).append('"');
+            if (isEdDsa()) {
+                // X.509 encoding of an Ed25519 key is a fixed 12-byte prefix followed by the raw 32-byte key
+                byte[] encoded = entry.getValue().getEncoded();
+                json.append(",\"kty\":\"OKP\",\"crv\":\"Ed25519\",\"x\":\"")
+                        .append(base64Url(Arrays.copyOfRange(encoded, encoded.length - 32, encoded.length))).append('"');
+            } else {
+                ECPublicKey ecKey = (ECPublicKey) entry.getValue();
+                json.append(",\"kty\":\"EC\",\"crv\":\"P-256\",\"x\":\"")
+                        .append(base64Url(unsigned(ecKey.getW().getAffineX(), 32)))
+                        .append("\",\"y\":\"")
+                        .append(base64Url(unsigned(ecKey.getW().getAffineY(), 32))).append('"');
+            }
+            json.append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    private static byte[] unsigned(BigInteger value, int length) {
+        byte[] bytes = value.toByteArray();
+        byte[] result = new byte[length];
+        int copy = Math.min(bytes.length, length);
+        System.arraycopy(bytes, bytes.length - copy, result, length - copy, copy);
+        return result;
+    }
+
+    private static String base64Url(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
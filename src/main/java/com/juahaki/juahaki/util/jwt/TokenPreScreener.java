@@ -0,0 +1,304 @@
+package com.juahaki.juahaki.util.jwt;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Cheap structural checks run before any signature verification, so malformed,
+ * oversized or long-expired tokens from scanners are dropped without HMAC work
+ * or a log line. Rejections are counted in {@code jwt.prescreen.rejected}.
+ */
+@Component
+public class TokenPreScreener {
+
+    public enum Rejection {
+        EMPTY,
+        TOO_SHORT,
+        TOO_LONG,
+        SEGMENT_COUNT,
+        ALPHABET,
+        HEADER,
+        ALGORITHM,
+        PAYLOAD,
+        EXPIRED
+    }
+
+    // Smallest possible compact JWS is a few dozen characters; anything below is garbage
+    private static final int MIN_LENGTH = 32;
+    private static final byte[] SEXTETS = new byte[128];
+    private static final QuotedName ALG = new QuotedName("alg");
+    private static final QuotedName EXP = new QuotedName("exp");
+
+    static {
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            SEXTETS[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
+    private final Map<Rejection, Counter> rejectionCounters = new EnumMap<>(Rejection.class);
+
+    @Value("${app.jwt.prescreen.max-length:4096}")
+    private int maxLength;
+
+    @Value("${app.jwt.prescreen.clock-skew-seconds:60}")
+    private long clockSkewSeconds;
+
+    public TokenPreScreener(MeterRegistry meterRegistry) {
+        for (Rejection rejection : Rejection.values()) {
+            rejectionCounters.put(rejection, Counter.builder("jwt.prescreen.rejected")
+                    .description("Bearer tokens rejected before signature verification")
+                    .tag("reason", rejection.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Returns the reason the token cannot possibly be valid, or null if it is worth verifying.
+     */
+    public Rejection screen(String token) {
+        Rejection rejection = check(token);
+        if (rejection != null) {
+            rejectionCounters.get(rejection).increment();
+        }
+        return rejection;
+    }
+
+    private Rejection check(String token) {
+        if (token == null || token.isEmpty()) {
+            return Rejection.EMPTY;
+        }
+        int length = token.length();
+        if (length < MIN_LENGTH) {
+            return Rejection.TOO_SHORT;
+        }
+        if (length > maxLength) {
+            return Rejection.TOO_LONG;
+        }
+
+        int firstDot = -1;
+        int secondDot = -1;
+        for (int i = 0; i < length; i++) {
+            char c = token.charAt(i);
+            if (c == '.') {
+                if (firstDot < 0) {
+                    firstDot = i;
+                } else if (secondDot < 0) {
+                    secondDot = i;
+                } else {
+                    return Rejection.SEGMENT_COUNT;
+                }
+            } else if (!isBase64UrlChar(c)) {
+                return Rejection.ALPHABET;
+            }
+        }
+        if (firstDot <= 0 || secondDot <= firstDot + 1 || secondDot == length - 1) {
+            return Rejection.SEGMENT_COUNT;
+        }
+
+        // Header and payload are read straight from the base64url text, nothing is decoded into a copy
+        if (decodedLength(0, firstDot) < 0) {
+            return Rejection.HEADER;
+        }
+        if (!hasSupportedAlgorithm(token, 0, firstDot)) {
+            return Rejection.ALGORITHM;
+        }
+
+        if (decodedLength(firstDot + 1, secondDot) < 0) {
+            return Rejection.PAYLOAD;
+        }
+        long expiration = readNumberMember(token, firstDot + 1, secondDot, EXP);
+        if (expiration >= 0 && expiration + clockSkewSeconds < System.currentTimeMillis() / 1000) {
+            return Rejection.EXPIRED;
+        }
+        return null;
+    }
+
+    private static boolean isBase64UrlChar(char c) {
+        return (c >= 'A' && c <= 'Z')
+                || (c >= 'a' && c <= 'z')
+                || (c >= '0' && c <= '9')
+                || c == '-' || c == '_';
+    }
+
+    /**
+     * Number of bytes the unpadded base64url text in {@code [start, end)} decodes to, or -1
+     * if no valid encoding has that length. The alphabet has already been checked.
+     */
+    private static int decodedLength(int start, int end) {
+        int length = end - start;
+        return switch (length % 4) {
+            case 0 -> length / 4 * 3;
+            case 2 -> length / 4 * 3 + 1;
+            case 3 -> length / 4 * 3 + 2;
+            default -> -1;
+        };
+    }
+
+    /**
+     * Decoded byte {@code index} of the segment starting at {@code start}; every byte is
+     * spread over two adjacent base64url characters.
+     */
+    private static int byteAt(String token, int start, int index) {
+        int position = index % 3;
+        int first = start + index / 3 * 4 + position;
+        return ((SEXTETS[token.charAt(first)] << (2 + 2 * position))
+                | (SEXTETS[token.charAt(first + 1)] >> (4 - 2 * position))) & 0xFF;
+    }
+
+    /**
+     * Finds {@code "alg":"..."} in the header and checks it against the algorithms we issue
+     */
+    private static boolean hasSupportedAlgorithm(String token, int start, int end) {
+        int length = decodedLength(start, end);
+        int index = valueIndex(token, start, end, ALG);
+        if (index < 0 || index >= length || byteAt(token, start, index) != '"') {
+            return false;
+        }
+        int valueStart = index + 1;
+        int valueEnd = valueStart;
+        while (valueEnd < length && byteAt(token, start, valueEnd) != '"') {
+            valueEnd++;
+        }
+        if (valueEnd >= length) {
+            return false;
+        }
+        int valueLength = valueEnd - valueStart;
+        return (valueLength >= 2 && byteAt(token, start, valueStart) == 'H' && byteAt(token, start, valueStart + 1) == 'S')
+                || regionEquals(token, start, valueStart, valueLength, "ES256")
+                || regionEquals(token, start, valueStart, valueLength, "EdDSA");
+    }
+
+    private static boolean regionEquals(String token, int start, int index, int length, String expected) {
+        if (length != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (byteAt(token, start, index + i) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds {@code "name":123} in a flat JSON object; returns -1 when absent or not a number.
+     */
+    private static long readNumberMember(String token, int start, int end, QuotedName name) {
+        int length = decodedLength(start, end);
+        int index = valueIndex(token, start, end, name);
+        if (index < 0) {
+            return -1;
+        }
+        long value = 0;
+        int digits = 0;
+        while (index < length && digits < 18) {
+            int b = byteAt(token, start, index);
+            if (b < '0' || b > '9') {
+                break;
+            }
+            value = value * 10 + (b - '0');
+            index++;
+            digits++;
+        }
+        return digits > 0 ? value : -1;
+    }
+
+    /**
+     * Index of the value after the first {@code "name":} in a flat JSON object, without
+     * decoding the segment. The quoted name has one fixed base64url form for each of the three
+     * byte alignments, so candidates are found with {@link String#indexOf} on the token and
+     * then checked byte by byte.
+     */
+    private static int valueIndex(String token, int start, int end, QuotedName name) {
+        int length = decodedLength(start, end);
+        int bestIndex = Integer.MAX_VALUE;
+        int bestValue = -1;
+        for (int alignment = 0; alignment < 3; alignment++) {
+            String pattern = name.patterns[alignment];
+            int firstChar = name.firstChars[alignment];
+            int from = start + firstChar;
+            while (true) {
+                int found = token.indexOf(pattern, from);
+                if (found < 0 || found + pattern.length() > end) {
+                    break;
+                }
+                from = found + 1;
+                int relative = found - start - firstChar;
+                if (relative % 4 != 0) {
+                    continue;
+                }
+                int index = relative / 4 * 3 + alignment;
+                if (index >= bestIndex) {
+                    break;
+                }
+                int value = valueAfter(token, start, length, index, name.bytes);
+                if (value >= 0) {
+                    bestIndex = index;
+                    bestValue = value;
+                    break;
+                }
+            }
+        }
+        return bestValue;
+    }
+
+    private static int valueAfter(String token, int start, int length, int index, byte[] quotedName) {
+        if (index + quotedName.length >= length) {
+            return -1;
+        }
+        for (int i = 0; i < quotedName.length; i++) {
+            if (byteAt(token, start, index + i) != quotedName[i]) {
+                return -1;
+            }
+        }
+        index += quotedName.length;
+        while (index < length && isWhitespace(byteAt(token, start, index))) {
+            index++;
+        }
+        if (index >= length || byteAt(token, start, index) != ':') {
+            return -1;
+        }
+        index++;
+        while (index < length && isWhitespace(byteAt(token, start, index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private static boolean isWhitespace(int b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+
+    /**
+     * {@code "name"} as bytes and as the base64url characters it always encodes to when it
+     * starts at a decoded offset of 0, 1 or 2 modulo 3; {@code firstChars} is where those
+     * characters sit within their 4-character group.
+     */
+    private static final class QuotedName {
+        private final byte[] bytes;
+        private final String[] patterns = new String[3];
+        private final int[] firstChars = new int[3];
+
+        private QuotedName(String name) {
+            this.bytes = ("\"" + name + "\"").getBytes(StandardCharsets.US_ASCII);
+            for (int alignment = 0; alignment < 3; alignment++) {
+                byte[] aligned = new byte[alignment + bytes.length];
+                System.arraycopy(bytes, 0, aligned, alignment, bytes.length);
+                String encoded = Base64.getUrlEncoder().withoutPadding().encodeToString(aligned);
+                // Characters that also carry bits of the neighbouring bytes are left out
+                int first = (alignment * 8 + 5) / 6;
+                int last = (alignment + bytes.length) * 8 / 6;
+                patterns[alignment] = encoded.substring(first, last);
+                firstChars[alignment] = first;
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.juahaki.juahaki.util.jwt;
+
+import com.juahaki.juahaki.enums.Role;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.Date;
+
+/**
+ * Claims of a token whose signature and expiry have already been checked.
+ * Produced by a single parse in {@link JwtUtil#verifyToken(String)} and passed
+ * around instead of the raw token string so callers never re-verify it.
+ */
+@Getter
+@Builder
+public class VerifiedToken {
+
+    private final String tokenId;
+    private final String subject;
+    private final Long userId;
+    private final String email;
+    private final Role role;
+    private final String type;
+    private final Integer tokenVersion;
+    private final Date issuedAt;
+    private final Date expiration;
+
+    public boolean isRefreshToken() {
+        return "refresh".equals(type);
+    }
+
+    public boolean isExpired() {
+        return expiration != null && expiration.before(new Date());
+    }
+
+    /**
+     * Tokens issued before versioning carry no claim and count as version 0
+     */
+    public int getTokenVersionOrDefault() {
+        return tokenVersion != null ? tokenVersion : 0;
+    }
+
+    public boolean hasRole(Role expectedRole) {
+        return role != null && role.equals(expectedRole);
+    }
+}
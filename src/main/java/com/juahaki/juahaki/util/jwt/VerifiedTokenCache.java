@@ -0,0 +1,118 @@
+package com.juahaki.juahaki.util.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Optional cache of already-verified access tokens so a client repeating the same
+ * token skips HMAC and JSON work. Entries never outlive the token's own {@code exp}.
+ * <p>
+ * Entries are keyed by the token's signature segment, which is already an HMAC digest
+ * of header and payload, and the full token's hash and length are compared on a hit.
+ * Refresh tokens are never cached.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final boolean enabled;
+    private final Cache<String, CachedToken> cache;
+
+    public VerifiedTokenCache(
+            MeterRegistry meterRegistry,
+            @Value("${app.jwt.verified-cache.enabled:false}") boolean enabled,
+            @Value("${app.jwt.verified-cache.max-size:50000}") long maxSize,
+            @Value("${app.jwt.verified-cache.max-ttl-seconds:300}") long maxTtlSeconds) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry(Duration.ofSeconds(maxTtlSeconds).toNanos()))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "verifiedTokens");
+    }
+
+    public VerifiedToken get(String token) {
+        if (!enabled || token == null) {
+            return null;
+        }
+        String key = signatureOf(token);
+        if (key == null) {
+            return null;
+        }
+        CachedToken cached = cache.getIfPresent(key);
+        if (cached == null || !cached.matches(token) || cached.verifiedToken.isExpired()) {
+            return null;
+        }
+        return cached.verifiedToken;
+    }
+
+    public void put(String token, VerifiedToken verifiedToken) {
+        if (!enabled || verifiedToken.isRefreshToken() || verifiedToken.getExpiration() == null) {
+            return;
+        }
+        String key = signatureOf(token);
+        if (key != null) {
+            cache.put(key, new CachedToken(token, verifiedToken));
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private static String signatureOf(String token) {
+        int lastDot = token.lastIndexOf('.');
+        if (lastDot < 0 || lastDot == token.length() - 1) {
+            return null;
+        }
+        return token.substring(lastDot + 1);
+    }
+
+    private static final class CachedToken {
+        private final int tokenHash;
+        private final int tokenLength;
+        private final VerifiedToken verifiedToken;
+
+        private CachedToken(String token, VerifiedToken verifiedToken) {
+            this.tokenHash = token.hashCode();
+            this.tokenLength = token.length();
+            this.verifiedToken = verifiedToken;
+        }
+
+        private boolean matches(String token) {
+            return token.length() == tokenLength && token.hashCode() == tokenHash;
+        }
+    }
+
+    private static final class TokenExpiry implements Expiry<String, CachedToken> {
+        private final long maxTtlNanos;
+
+        private TokenExpiry(long maxTtlNanos) {
+            this.maxTtlNanos = maxTtlNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(String key, CachedToken value, long currentTime) {
+            long remainingMillis = value.verifiedToken.getExpiration().getTime() - System.currentTimeMillis();
+            return Math.max(0, Math.min(maxTtlNanos, Duration.ofMillis(remainingMillis).toNanos()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.juahaki.juahaki.util.timer;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel: four levels of 64 slots, each level's slot spanning a full
+ * rotation of the level below. Scheduling and cancelling are O(1); advancing the clock only
+ * visits the slots that come due, and entries in higher levels are cascaded down once when
+ * their slot is reached, so nothing is ever scanned to find what expired.
+ * <p>
+ * With a one second tick the wheel covers about 194 days; later deadlines are parked in the
+ * farthest slot and re-placed each time it comes round. Thread-safe; all operations take the
+ * wheel's monitor, which is only ever held for the few slots being processed.
+ */
+public final class TimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_SPAN_TICKS = 1L << (SLOT_BITS * LEVELS);
+
+    private final long tickMillis;
+    private final Timeout<T>[][] slots;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.currentTick = startMillis / tickMillis;
+        this.slots = new Timeout[LEVELS][SLOTS];
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                slots[level][slot] = Timeout.sentinel();
+            }
+        }
+    }
+
+    /**
+     * Schedule {@code value} to be handed to the expiry callback on the first
+     * {@link #advance} at or after {@code deadlineMillis}.
+     */
+    public synchronized Timeout<T> schedule(T value, long deadlineMillis) {
+        Timeout<T> timeout = new Timeout<>(value, ceilDiv(deadlineMillis, tickMillis));
+        place(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * @return false if the timeout had already fired or been cancelled
+     */
+    public synchronized boolean cancel(Timeout<T> timeout) {
+        if (timeout == null || timeout.prev == null) {
+            return false;
+        }
+        timeout.unlink();
+        size--;
+        return true;
+    }
+
+    /**
+     * Move the clock forward to {@code nowMillis}, passing every value whose deadline has
+     * been reached to {@code onExpire}. Callbacks run while the wheel is locked and must
+     * not call back into it.
+     */
+    public synchronized void advance(long nowMillis, Consumer<T> onExpire) {
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            if (size == 0) {
+                currentTick = targetTick;
+                return;
+            }
+            currentTick++;
+            cascade();
+            expireSlot(onExpire);
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private void cascade() {
+        // Highest level first, so entries can fall through several levels in a single tick
+        for (int level = LEVELS - 1; level >= 1; level--) {
+            if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) != 0) {
+                continue;
+            }
+            Timeout<T> head = slots[level][(int) (currentTick >>> (SLOT_BITS * level)) & SLOT_MASK];
+            Timeout<T> timeout = head.next;
+            while (timeout != head) {
+                Timeout<T> next = timeout.next;
+                timeout.unlink();
+                if (timeout.deadlineTick <= currentTick) {
+                    // Due this very tick; the level 0 slot is expired right after cascading
+                    slots[0][(int) currentTick & SLOT_MASK].append(timeout);
+                } else {
+                    place(timeout);
+                }
+                timeout = next;
+            }
+        }
+    }
+
+    private void expireSlot(Consumer<T> onExpire) {
+        Timeout<T> head = slots[0][(int) currentTick & SLOT_MASK];
+        Timeout<T> timeout = head.next;
+        while (timeout != head) {
+            Timeout<T> next = timeout.next;
+            timeout.unlink();
+            if (timeout.deadlineTick <= currentTick) {
+                size--;
+                onExpire.accept(timeout.value);
+            } else {
+                place(timeout);
+            }
+            timeout = next;
+        }
+    }
+
+    private void place(Timeout<T> timeout) {
+        long delta = timeout.deadlineTick - currentTick;
+        long tick = timeout.deadlineTick;
+        if (delta <= 0) {
+            // Already due: fire on the next tick
+            tick = currentTick + 1;
+            delta = 1;
+        } else if (delta >= MAX_SPAN_TICKS) {
+            tick = currentTick + MAX_SPAN_TICKS - 1;
+            delta = MAX_SPAN_TICKS - 1;
+        }
+
+        int level = 0;
+        while (delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        slots[level][(int) (tick >>> (SLOT_BITS * level)) & SLOT_MASK].append(timeout);
+    }
+
+    private static long ceilDiv(long value, long divisor) {
+        return -Math.floorDiv(-value, divisor);
+    }
+
+    /**
+     * Handle for a scheduled value, used to cancel it
+     */
+    public static final class Timeout<T> {
+        private final T value;
+        private final long deadlineTick;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+
+        private Timeout(T value, long deadlineTick) {
+            this.value = value;
+            this.deadlineTick = deadlineTick;
+        }
+
+        private static <T> Timeout<T> sentinel() {
+            Timeout<T> sentinel = new Timeout<>(null, Long.MAX_VALUE);
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            return sentinel;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        private void append(Timeout<T> timeout) {
+            timeout.prev = prev;
+            timeout.next = this;
+            prev.next = timeout;
+            prev = timeout;
+        }
+
+        private void unlink() {
+            prev.next = next;
+            next.prev = prev;
+            prev = null;
+            next = null;
+        }
+    }
+}
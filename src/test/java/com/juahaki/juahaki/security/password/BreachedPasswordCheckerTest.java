@@ -0,0 +1,117 @@
+package com.juahaki.juahaki.security.password;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BreachedPasswordCheckerTest {
+
+    @TempDir
+    Path dir;
+
+    private SimpleMeterRegistry registry;
+    private BreachedPasswordChecker checker;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        checker = new BreachedPasswordChecker(registry);
+        ReflectionTestUtils.setField(checker, "prefixBytes", 10);
+    }
+
+    @Test
+    void disabledCheckFailsOpenWithoutFile() throws IOException {
+        ReflectionTestUtils.setField(checker, "enabled", false);
+        ReflectionTestUtils.setField(checker, "file", dir.resolve("missing.bin").toString());
+
+        checker.load();
+
+        assertFalse(checker.isBreached("password123"));
+        assertDoesNotThrow(() -> checker.checkNotBreached("password123"));
+    }
+
+    @Test
+    void enabledCheckFailsClosedWhenFileIsMissing() {
+        ReflectionTestUtils.setField(checker, "enabled", true);
+        ReflectionTestUtils.setField(checker, "file", dir.resolve("missing.bin").toString());
+
+        // Startup fails rather than running without the check
+        assertThrows(NoSuchFileException.class, checker::load);
+    }
+
+    @Test
+    void enabledCheckRequiresFileSetting() {
+        ReflectionTestUtils.setField(checker, "enabled", true);
+        ReflectionTestUtils.setField(checker, "file", "");
+
+        assertThrows(IllegalStateException.class, checker::load);
+    }
+
+    @Test
+    void buildsMissingFileFromSourceAndRejectsListedPasswords() throws IOException {
+        Path source = dir.resolve("source.txt");
+        Files.write(source, Stream.of("password123", "letmein", "qwerty")
+                .map(BreachedPasswordCheckerTest::sha1Hex).sorted().toList());
+        Path binary = dir.resolve("breached.bin");
+        ReflectionTestUtils.setField(checker, "enabled", true);
+        ReflectionTestUtils.setField(checker, "file", binary.toString());
+        ReflectionTestUtils.setField(checker, "source", source.toString());
+
+        checker.load();
+
+        assertTrue(Files.exists(binary));
+        assertEquals(3.0, registry.get("password.breached.entries").gauge().value());
+        assertTrue(checker.isBreached("letmein"));
+        assertFalse(checker.isBreached("correct horse battery staple"));
+        assertFalse(checker.isBreached(null));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> checker.checkNotBreached("qwerty"));
+        assertTrue(e.getMessage().contains("data breach"));
+        assertEquals(1.0, registry.get("password.breached.rejected").counter().count());
+    }
+
+    @Test
+    void existingFileIsUsedWithoutSource() throws IOException {
+        Path source = dir.resolve("source.txt");
+        Files.write(source, List.of(sha1Hex("letmein")));
+        Path binary = dir.resolve("breached.bin");
+        BreachedPasswordFile.build(source, binary, 10);
+        Files.delete(source);
+        ReflectionTestUtils.setField(checker, "enabled", true);
+        ReflectionTestUtils.setField(checker, "file", binary.toString());
+        ReflectionTestUtils.setField(checker, "source", "");
+
+        checker.load();
+
+        assertTrue(checker.isBreached("letmein"));
+    }
+
+    private static String sha1Hex(String password) {
+        try {
+            return HexFormat.of().withUpperCase().formatHex(
+                    MessageDigest.getInstance("SHA-1").digest(password.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
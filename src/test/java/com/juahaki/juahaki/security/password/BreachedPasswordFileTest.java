@@ -0,0 +1,150 @@
+package com.juahaki.juahaki.security.password;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BreachedPasswordFileTest {
+
+    // Records are 4-byte prefixes; the last one has the top bit set to catch signed comparisons
+    private static final long[] RECORDS = {10, 20, 30, 40, 50, 60, 70, 80, 90, 0xF0000000L};
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void buildRemovesDuplicates() throws IOException {
+        Path source = write("source.txt",
+                hex(10) + ":12",
+                hex(10).toLowerCase(),
+                // Differs only after the prefix, so it is the same record
+                hex(10).substring(0, 8) + "FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFF",
+                "",
+                hex(20) + ":3",
+                hex(20));
+        Path target = dir.resolve("breached.bin");
+
+        assertEquals(2, BreachedPasswordFile.build(source, target, 4));
+
+        assertEquals(8 + 2 * 4, Files.size(target));
+        BreachedPasswordFile file = BreachedPasswordFile.open(target);
+        assertEquals(2, file.size());
+        assertEquals(4, file.prefixBytes());
+        assertTrue(file.contains(sha1(10)));
+        assertTrue(file.contains(sha1(20)));
+    }
+
+    @Test
+    void buildRejectsUnsortedInput() throws IOException {
+        Path source = write("source.txt", hex(10), hex(30), hex(20));
+        Path target = dir.resolve("breached.bin");
+
+        IOException e = assertThrows(IOException.class, () -> BreachedPasswordFile.build(source, target, 4));
+
+        assertTrue(e.getMessage().contains("line 3"));
+        assertFalse(Files.exists(target));
+        // The temp file is cleaned up as well
+        try (var files = Files.list(dir)) {
+            assertEquals(List.of(source), files.toList());
+        }
+    }
+
+    @Test
+    void buildRejectsMalformedLinesAndBadWidth() throws IOException {
+        Path source = write("source.txt", hex(10), "not-a-hash");
+
+        assertThrows(IOException.class, () -> BreachedPasswordFile.build(source, dir.resolve("a.bin"), 4));
+        assertThrows(IllegalArgumentException.class, () -> BreachedPasswordFile.build(source, dir.resolve("b.bin"), 21));
+    }
+
+    @Test
+    void openRejectsForeignFiles() throws IOException {
+        Path garbage = dir.resolve("garbage.bin");
+        Files.write(garbage, new byte[]{'N', 'O', 'P', 'E', 1, 4, 0, 0});
+
+        assertThrows(IOException.class, () -> BreachedPasswordFile.open(garbage));
+        assertThrows(IOException.class, () -> BreachedPasswordFile.open(dir.resolve("missing.bin")));
+    }
+
+    @Test
+    void findsFirstAndLastRecordInSingleMapping() throws IOException {
+        BreachedPasswordFile file = BreachedPasswordFile.open(buildRecords());
+
+        assertEquals(RECORDS.length, file.size());
+        assertTrue(file.contains(sha1(RECORDS[0])));
+        assertTrue(file.contains(sha1(RECORDS[RECORDS.length - 1])));
+        assertFalse(file.contains(sha1(RECORDS[0] - 1)));
+        assertFalse(file.contains(sha1(RECORDS[RECORDS.length - 1] + 1)));
+        assertFalse(file.contains(sha1(0xFFFFFFFFL)));
+    }
+
+    @Test
+    void searchesAcrossChunkBoundaries() throws IOException {
+        // Three records per chunk: [10 20 30] [40 50 60] [70 80 90] [F0000000]
+        BreachedPasswordFile file = BreachedPasswordFile.open(buildRecords(), 3 * 4 + 2);
+
+        for (long record : RECORDS) {
+            assertTrue(file.contains(sha1(record)), Long.toHexString(record));
+        }
+        for (long boundary : new long[]{30, 60, 90}) {
+            // Last record of a chunk, the gap after it and the first record of the next
+            assertFalse(file.contains(sha1(boundary - 1)));
+            assertFalse(file.contains(sha1(boundary + 1)));
+            assertFalse(file.contains(sha1(boundary + 9)));
+        }
+        assertFalse(file.contains(sha1(0)));
+        assertFalse(file.contains(sha1(0xFFFFFFFFL)));
+    }
+
+    @Test
+    void emptyListContainsNothing() throws IOException {
+        Path target = dir.resolve("empty.bin");
+        assertEquals(0, BreachedPasswordFile.build(write("empty.txt"), target, 4));
+
+        BreachedPasswordFile file = BreachedPasswordFile.open(target, 12);
+        assertEquals(0, file.size());
+        assertFalse(file.contains(sha1(10)));
+    }
+
+    private Path buildRecords() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (long record : RECORDS) {
+            lines.add(hex(record));
+        }
+        Path target = dir.resolve("records.bin");
+        BreachedPasswordFile.build(write("records.txt", lines.toArray(String[]::new)), target, 4);
+        return target;
+    }
+
+    private Path write(String name, String... lines) throws IOException {
+        return Files.write(dir.resolve(name), List.of(lines));
+    }
+
+    private static String hex(long prefix) {
+        return HexFormat.of().withUpperCase().formatHex(sha1(prefix));
+    }
+
+    /**
+     * A SHA-1 whose first four bytes are {@code prefix} and whose remaining bytes are noise
+     */
+    private static byte[] sha1(long prefix) {
+        ByteBuffer buffer = ByteBuffer.allocate(BreachedPasswordFile.SHA1_LENGTH);
+        buffer.putInt((int) prefix);
+        while (buffer.hasRemaining()) {
+            buffer.put((byte) 0xA5);
+        }
+        return buffer.array();
+    }
+}
@@ -0,0 +1,118 @@
+package com.juahaki.juahaki.security.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlidingWindowLimiterTest {
+
+    private static final long WINDOW = 10_000;
+    private static final String KEY = "jane@example.com";
+
+    @Test
+    void allowsUpToLimitWithinOneWindow() {
+        SlidingWindowLimiter limiter = limiter(5);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire(KEY, 1_000 + i));
+        }
+        assertTrue(limiter.tryAcquire(KEY, 2_000) > 0);
+        // Denied attempts are not counted, and other keys are unaffected
+        assertTrue(limiter.tryAcquire(KEY, 9_999) > 0);
+        assertEquals(0, limiter.tryAcquire("john@example.com", 2_000));
+    }
+
+    @Test
+    void previousWindowCarriesOverByOverlap() {
+        SlidingWindowLimiter limiter = limiter(10);
+        assertEquals(10, acquireUntilDenied(limiter, 5_000));
+
+        // Halfway into the next window half of the previous count still applies
+        assertEquals(5, acquireUntilDenied(limiter, WINDOW + 5_000));
+        // With 10% overlap left: 10 * 0.1 + 5 current leaves room for 4 more
+        assertEquals(4, acquireUntilDenied(limiter, WINDOW + 9_000));
+    }
+
+    @Test
+    void skippedWindowLeavesNothingBehind() {
+        SlidingWindowLimiter limiter = limiter(10);
+        assertEquals(10, acquireUntilDenied(limiter, 9_999));
+
+        // The full window in between had no attempts, so nothing overlaps any more
+        assertEquals(10, acquireUntilDenied(limiter, 2 * WINDOW));
+        assertEquals(10, acquireUntilDenied(limiter, 5 * WINDOW + 1));
+    }
+
+    @Test
+    void countSaturatesAtFieldWidth() {
+        long maxCount = (1L << 20) - 1;
+        SlidingWindowLimiter limiter = limiter(Integer.MAX_VALUE);
+
+        for (long i = 0; i < maxCount + 10; i++) {
+            assertEquals(0, limiter.tryAcquire(KEY, 1_000));
+        }
+
+        long packed = limiter.cache().getIfPresent(KEY).get();
+        assertEquals(maxCount, packed & maxCount);
+        // Nothing spilled into the previous-window field
+        assertEquals(0, (packed >>> 20) & maxCount);
+
+        limiter.tryAcquire(KEY, WINDOW + 1_000);
+        packed = limiter.cache().getIfPresent(KEY).get();
+        assertEquals(maxCount, (packed >>> 20) & maxCount);
+        assertEquals(1, packed & maxCount);
+    }
+
+    @Test
+    void retryAfterPointsAtFirstAllowedSecondWhenCurrentWindowIsFull() {
+        SlidingWindowLimiter limiter = limiter(10);
+        acquireUntilDenied(limiter, 1_000);
+
+        long retryAfter = limiter.tryAcquire(KEY, 1_000);
+
+        // The full window only starts to slide out once the next window has begun
+        assertEquals(10, retryAfter);
+        assertTrue(limiter.tryAcquire(KEY, 1_000 + (retryAfter - 1) * 1000) > 0);
+        assertEquals(0, limiter.tryAcquire(KEY, 1_000 + retryAfter * 1000));
+    }
+
+    @Test
+    void retryAfterPointsAtFirstAllowedSecondWhilePreviousWindowDecays() {
+        SlidingWindowLimiter limiter = limiter(10);
+        acquireUntilDenied(limiter, 5_000);
+        assertEquals(1, acquireUntilDenied(limiter, WINDOW + 500));
+
+        long now = WINDOW + 500;
+        long retryAfter = limiter.tryAcquire(KEY, now);
+
+        assertEquals(1, retryAfter);
+        // One second into the window 10 * 0.9 + 1 is exactly the limit, still denied
+        assertTrue(limiter.tryAcquire(KEY, WINDOW + 1_000) > 0);
+        assertEquals(0, limiter.tryAcquire(KEY, now + retryAfter * 1000));
+    }
+
+    @Test
+    void resetForgetsKey() {
+        SlidingWindowLimiter limiter = limiter(3);
+        acquireUntilDenied(limiter, 1_000);
+
+        limiter.reset(KEY);
+
+        assertEquals(3, acquireUntilDenied(limiter, 1_000));
+    }
+
+    private static SlidingWindowLimiter limiter(int limit) {
+        return new SlidingWindowLimiter(limit, Duration.ofMillis(WINDOW), 1_000);
+    }
+
+    private static int acquireUntilDenied(SlidingWindowLimiter limiter, long nowMillis) {
+        int allowed = 0;
+        while (limiter.tryAcquire(KEY, nowMillis) == 0) {
+            allowed++;
+        }
+        return allowed;
+    }
+}
@@ -0,0 +1,115 @@
+package com.juahaki.juahaki.service.admin.user;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.juahaki.juahaki.dto.admin.user.UserImportRow;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserImportReaderTest {
+
+    private static final String HEADER = "firstName,lastName,username,email,password,phoneNumber";
+
+    @Test
+    void readsQuotedCommasAndDoubledQuotes() throws IOException {
+        UserImportReader reader = csv(HEADER,
+                "\"Doe, Jr.\",\"O\"\"Brien\",jane,jane@example.com,\"pa,ss\"\"word\",");
+
+        UserImportReader.Record record = reader.next();
+
+        assertEquals(2, record.line());
+        assertNull(record.error());
+        assertEquals("Doe, Jr.", record.row().getFirstName());
+        assertEquals("O\"Brien", record.row().getLastName());
+        assertEquals("pa,ss\"word", record.row().getPassword());
+        assertNull(record.row().getPhoneNumber());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void reportsUnterminatedQuoteAndContinues() throws IOException {
+        UserImportReader reader = csv(HEADER,
+                "Jane,\"Doe,jane,jane@example.com,secret123,",
+                "John,Doe,john,john@example.com,secret123,+254700000000");
+
+        UserImportReader.Record broken = reader.next();
+        assertEquals(2, broken.line());
+        assertNull(broken.row());
+        assertEquals("Malformed CSV: unterminated quote", broken.error());
+
+        UserImportReader.Record next = reader.next();
+        assertEquals(3, next.line());
+        assertEquals("john", next.row().getUsername());
+        assertEquals("+254700000000", next.row().getPhoneNumber());
+    }
+
+    @Test
+    void acceptsSnakeCaseHeaderInAnyOrder() throws IOException {
+        UserImportReader reader = csv("Email, USERNAME ,password,last_name,first_name",
+                "jane@example.com,jane,secret123,Doe,Jane");
+
+        UserImportRow row = reader.next().row();
+
+        assertEquals("Jane", row.getFirstName());
+        assertEquals("Doe", row.getLastName());
+        assertEquals("jane", row.getUsername());
+        assertEquals("jane@example.com", row.getEmail());
+        assertNull(row.getPhoneNumber());
+    }
+
+    @Test
+    void rejectsHeaderMissingRequiredColumn() {
+        UserImportReader reader = csv("firstName,lastName,username,password", "Jane,Doe,jane,secret123");
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, reader::next);
+        assertTrue(e.getMessage().contains("email"));
+    }
+
+    @Test
+    void stripsByteOrderMark() throws IOException {
+        UserImportReader reader = csv("\uFEFF" + HEADER, "Jane,Doe,jane,jane@example.com,secret123,");
+
+        assertEquals("Jane", reader.next().row().getFirstName());
+    }
+
+    @Test
+    void skipsBlankLinesButKeepsLineNumbers() throws IOException {
+        UserImportReader reader = csv("", HEADER, "  ", "Jane,Doe,jane,jane@example.com,secret123,", "",
+                "John,Doe,john,john@example.com,secret123,", "");
+
+        assertEquals(4, reader.next().line());
+        assertEquals(6, reader.next().line());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void readsNdjsonAndReportsMalformedLines() throws IOException {
+        UserImportReader reader = new UserImportReader(new BufferedReader(new StringReader(String.join("\n",
+                "{\"firstName\":\"Jane\",\"lastName\":\"Doe\",\"username\":\"jane\",\"email\":\"jane@example.com\","
+                        + "\"password\":\"secret123\",\"role\":\"ADMIN\"}",
+                "",
+                "{\"firstName\":"))), UserImportFormat.NDJSON, new ObjectMapper());
+
+        UserImportReader.Record first = reader.next();
+        assertEquals(1, first.line());
+        assertEquals("jane", first.row().getUsername());
+
+        UserImportReader.Record second = reader.next();
+        assertEquals(3, second.line());
+        assertNull(second.row());
+        assertTrue(second.error().startsWith("Malformed JSON"));
+        assertNull(reader.next());
+    }
+
+    private static UserImportReader csv(String... lines) {
+        return new UserImportReader(new BufferedReader(new StringReader(String.join("\n", lines))),
+                UserImportFormat.CSV, new ObjectMapper());
+    }
+}
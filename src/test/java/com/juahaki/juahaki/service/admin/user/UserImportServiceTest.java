@@ -0,0 +1,187 @@
+package com.juahaki.juahaki.service.admin.user;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.juahaki.juahaki.dto.admin.user.UserImportResult;
+import com.juahaki.juahaki.enums.AuthProvider;
+import com.juahaki.juahaki.enums.Role;
+import com.juahaki.juahaki.model.user.User;
+import com.juahaki.juahaki.repository.user.UserRepository;
+import com.juahaki.juahaki.security.password.BreachedPasswordChecker;
+import com.juahaki.juahaki.service.user.IUserAvailabilityService;
+import com.juahaki.juahaki.support.PostgresTestConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Runs the import against PostgreSQL, since skip detection relies on {@code ON CONFLICT}
+ * and {@code RETURNING}. Chunks are kept tiny so the inputs cross chunk boundaries.
+ */
+@DataJpaTest(properties = "spring.config.on-not-found=ignore")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(PostgresTestConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class UserImportServiceTest {
+
+    private static final String HEADER = "first_name,last_name,username,email,password,phone_number";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder(4);
+    private IUserAvailabilityService userAvailabilityService;
+    private UserImportService service;
+
+    @BeforeEach
+    void setUp() {
+        userAvailabilityService = mock(IUserAvailabilityService.class);
+        service = new UserImportService(jdbcTemplate, transactionManager, passwordEncoder,
+                new BreachedPasswordChecker(new SimpleMeterRegistry()), userAvailabilityService,
+                Validation.buildDefaultValidatorFactory().getValidator(), objectMapper, new SimpleMeterRegistry(), 2);
+        ReflectionTestUtils.setField(service, "chunkSize", 2);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        service.destroy();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void importsRowsAcrossChunkBoundaries() throws IOException {
+        List<UserImportResult> report = importCsv(true,
+                HEADER,
+                "Jane,Doe,Jane,Jane@Example.com,secret123,+254700000001",
+                "John,Doe,john,john@example.com,secret123,",
+                "Mary,Wanjiru,mary,mary@example.com,secret123,",
+                "Paul,Otieno,paul,paul@example.com,secret123,",
+                "Ann,Akinyi,ann,ann@example.com,secret123,");
+
+        assertEquals(List.of(2L, 3L, 4L, 5L, 6L), linesWithStatus(report, UserImportResult.IMPORTED));
+        assertSummary(report, 5, 0, 0);
+        verify(userAvailabilityService, times(5)).recordUser(any());
+
+        // Loading through JPA checks the hand-written column values against the entity mapping
+        User jane = userRepository.findByUsernameOrEmail("jane", "jane").orElseThrow();
+        assertEquals("jane@example.com", jane.getEmail());
+        assertEquals("+254700000001", jane.getPhoneNumber());
+        assertEquals(AuthProvider.LOCAL, jane.getProvider());
+        assertEquals(Role.USER, jane.getRole());
+        assertEquals(0, jane.getTokenVersion());
+        assertTrue(jane.getEmailVerified());
+        assertTrue(jane.isEnabled());
+        assertTrue(jane.isAccountNonLocked());
+        assertTrue(passwordEncoder.matches("secret123", jane.getPassword()));
+    }
+
+    @Test
+    void skipsDuplicatesWithinFileAndAgainstExistingUsers() throws IOException {
+        userRepository.save(User.builder().username("taken").email("taken@example.com").build());
+
+        List<UserImportResult> report = importCsv(false,
+                HEADER,
+                "Jane,Doe,jane,jane@example.com,secret123,",
+                // Same username as line 2 in the same chunk
+                "Jane,Again,JANE,other@example.com,secret123,",
+                "Taken,User,taken,new@example.com,secret123,",
+                "New,User,newbie,taken@example.com,secret123,",
+                // Same email as line 2, one chunk later
+                "Jane,Copy,janecopy,jane@example.com,secret123,",
+                "Bad,Row,bad,not-an-email,secret123,",
+                "Last,User,last,last@example.com,secret123,");
+
+        assertEquals(List.of(2L, 8L), linesWithStatus(report, UserImportResult.IMPORTED));
+        assertEquals(List.of(3L, 4L, 5L, 6L), linesWithStatus(report, UserImportResult.SKIPPED));
+        assertEquals(List.of(7L), linesWithStatus(report, UserImportResult.FAILED));
+        assertSummary(report, 2, 4, 1);
+
+        assertEquals(3, userRepository.count());
+        assertFalse(userRepository.findByUsernameOrEmail("jane", "jane").orElseThrow().isEnabled());
+        verify(userAvailabilityService, times(2)).recordUser(any());
+    }
+
+    @Test
+    void unusableHeaderIsReportedInBand() throws IOException {
+        List<UserImportResult> report = importCsv(false, "first_name,last_name,username,password",
+                "Jane,Doe,jane,secret123");
+
+        assertEquals(UserImportResult.FAILED, report.get(0).getStatus());
+        assertEquals(1L, report.get(0).getLine());
+        assertSummary(report, 0, 0, 1);
+        assertEquals(0, userRepository.count());
+    }
+
+    @Test
+    void insertCoversEveryRequiredColumnOfTheMappedTable() {
+        // The table is created by Hibernate from the User entity, so this follows the mapping
+        List<String> required = jdbcTemplate.queryForList(
+                "SELECT column_name FROM information_schema.columns WHERE table_name = 'users'"
+                        + " AND is_nullable = 'NO' AND column_default IS NULL AND is_identity = 'NO'", String.class);
+
+        assertFalse(required.isEmpty());
+        for (String column : required) {
+            assertTrue(UserImportService.INSERT_SQL.matches("(?s).*\\b" + column + "\\b.*"),
+                    "Import does not set required column " + column);
+        }
+    }
+
+    private List<UserImportResult> importCsv(boolean verified, String... lines) throws IOException {
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        service.importUsers(new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8)),
+                UserImportFormat.CSV, verified, report);
+
+        List<UserImportResult> results = new ArrayList<>();
+        for (String line : report.toString(StandardCharsets.UTF_8).split("\n")) {
+            results.add(objectMapper.readValue(line, UserImportResult.class));
+        }
+        return results;
+    }
+
+    private static List<Long> linesWithStatus(List<UserImportResult> report, String status) {
+        return report.stream().filter(result -> status.equals(result.getStatus())).map(UserImportResult::getLine).toList();
+    }
+
+    private static void assertSummary(List<UserImportResult> report, long imported, long skipped, long failed) {
+        UserImportResult summary = report.get(report.size() - 1);
+        assertEquals(UserImportResult.SUMMARY, summary.getStatus());
+        assertEquals(imported, summary.getImported());
+        assertEquals(skipped, summary.getSkipped());
+        assertEquals(failed, summary.getFailed());
+    }
+}
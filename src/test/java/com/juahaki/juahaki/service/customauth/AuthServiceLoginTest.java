@@ -0,0 +1,113 @@
+package com.juahaki.juahaki.service.customauth;
+
+import com.juahaki.juahaki.dto.auth.JwtResponse;
+import com.juahaki.juahaki.dto.auth.LoginRequest;
+import com.juahaki.juahaki.mapper.UserMapper;
+import com.juahaki.juahaki.model.user.User;
+import com.juahaki.juahaki.repository.user.UserRepository;
+import com.juahaki.juahaki.security.password.PasswordRehashService;
+import com.juahaki.juahaki.util.jwt.JwtHelperService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AuthServiceLoginTest {
+
+    private static final String LOGIN = "jane@example.com";
+    private static final String PASSWORD = "correct-horse-battery";
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private JwtHelperService jwtHelperService;
+
+    @Mock
+    private UserMapper userMapper;
+
+    @Mock
+    private PasswordRehashService passwordRehashService;
+
+    @InjectMocks
+    private AuthService authService;
+
+    @Test
+    void successfulLoginReadsTheUserExactlyOnce() {
+        User user = activeUser();
+        when(userRepository.findByUsernameOrEmail(LOGIN, LOGIN)).thenReturn(Optional.of(user));
+        when(passwordEncoder.matches(PASSWORD, user.getPassword())).thenReturn(true);
+        when(jwtHelperService.generateTokenPair(user)).thenReturn(new String[] { "access", "refresh" });
+
+        JwtResponse response = authService.login(new LoginRequest(LOGIN, PASSWORD));
+
+        assertEquals("access", response.getAccessToken());
+        verify(userRepository, times(1)).findByUsernameOrEmail(LOGIN, LOGIN);
+        verifyNoMoreInteractions(userRepository);
+        verify(passwordRehashService).rehashIfNeeded(user, PASSWORD);
+    }
+
+    @Test
+    void wrongPasswordReadsTheUserExactlyOnce() {
+        User user = activeUser();
+        when(userRepository.findByUsernameOrEmail(LOGIN, LOGIN)).thenReturn(Optional.of(user));
+        when(passwordEncoder.matches(PASSWORD, user.getPassword())).thenReturn(false);
+
+        assertThrows(BadCredentialsException.class, () -> authService.login(new LoginRequest(LOGIN, PASSWORD)));
+
+        verify(userRepository, times(1)).findByUsernameOrEmail(LOGIN, LOGIN);
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    void unknownUserStillPaysForOneHashCheck() {
+        when(userRepository.findByUsernameOrEmail(LOGIN, LOGIN)).thenReturn(Optional.empty());
+        when(passwordEncoder.encode(anyString())).thenReturn("$2a$10$dummy");
+
+        assertThrows(BadCredentialsException.class, () -> authService.login(new LoginRequest(LOGIN, PASSWORD)));
+
+        verify(userRepository, times(1)).findByUsernameOrEmail(LOGIN, LOGIN);
+        verifyNoMoreInteractions(userRepository);
+        verify(passwordEncoder).matches(PASSWORD, "$2a$10$dummy");
+    }
+
+    @Test
+    void lockedAccountIsRejectedWithoutCheckingThePassword() {
+        User user = activeUser();
+        user.setAccountNonLocked(false);
+        when(userRepository.findByUsernameOrEmail(LOGIN, LOGIN)).thenReturn(Optional.of(user));
+
+        assertThrows(BadCredentialsException.class, () -> authService.login(new LoginRequest(LOGIN, PASSWORD)));
+
+        verify(userRepository, times(1)).findByUsernameOrEmail(LOGIN, LOGIN);
+        verifyNoMoreInteractions(userRepository, passwordEncoder);
+    }
+
+    private static User activeUser() {
+        return User.builder()
+                .id(7L)
+                .username("jane")
+                .email(LOGIN)
+                .password("$2a$10$storedhash")
+                .emailVerified(true)
+                .isEnabled(true)
+                .build();
+    }
+}
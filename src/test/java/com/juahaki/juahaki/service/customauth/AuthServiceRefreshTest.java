@@ -0,0 +1,75 @@
+package com.juahaki.juahaki.service.customauth;
+
+import com.juahaki.juahaki.dto.auth.JwtResponse;
+import com.juahaki.juahaki.dto.auth.RefreshTokenRequest;
+import com.juahaki.juahaki.dto.user.UserInfo;
+import com.juahaki.juahaki.exception.CustomException;
+import com.juahaki.juahaki.mapper.UserMapper;
+import com.juahaki.juahaki.model.user.User;
+import com.juahaki.juahaki.security.jwt.UserDetailsServiceImpl;
+import com.juahaki.juahaki.util.jwt.JwtHelperService;
+import com.juahaki.juahaki.util.jwt.VerifiedToken;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.modelmapper.ModelMapper;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AuthServiceRefreshTest {
+
+    private static final String REFRESH_TOKEN = "refresh-token";
+
+    @Mock
+    private JwtHelperService jwtHelperService;
+
+    @Mock
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Spy
+    private UserMapper userMapper = new UserMapper(new ModelMapper());
+
+    @InjectMocks
+    private AuthService authService;
+
+    @Test
+    void refreshReturnsCompleteUser() {
+        VerifiedToken token = VerifiedToken.builder().userId(7L).subject("jane").type("refresh").build();
+        when(jwtHelperService.verifyRefreshToken(REFRESH_TOKEN)).thenReturn(token);
+        when(userDetailsService.loadUserById(7L)).thenReturn(User.builder()
+                .id(7L)
+                .firstName("Jane")
+                .lastName("Doe")
+                .username("jane")
+                .email("jane@example.com")
+                .phoneNumber("+254700000000")
+                .build());
+        when(jwtHelperService.refreshTokenPair(token)).thenReturn(new String[] { "access", "refresh" });
+
+        JwtResponse response = authService.refreshToken(new RefreshTokenRequest(REFRESH_TOKEN));
+
+        assertEquals("access", response.getAccessToken());
+        assertEquals(new UserInfo(7L, "Jane", "Doe", "jane", "jane@example.com", "+254700000000"), response.getUser());
+    }
+
+    @Test
+    void deletedUserCannotRefresh() {
+        VerifiedToken token = VerifiedToken.builder().userId(7L).subject("jane").type("refresh").build();
+        when(jwtHelperService.verifyRefreshToken(REFRESH_TOKEN)).thenReturn(token);
+        when(userDetailsService.loadUserById(7L)).thenThrow(new UsernameNotFoundException("User not found"));
+
+        assertThrows(CustomException.class, () -> authService.refreshToken(new RefreshTokenRequest(REFRESH_TOKEN)));
+
+        verify(jwtHelperService, never()).refreshTokenPair(any());
+    }
+}
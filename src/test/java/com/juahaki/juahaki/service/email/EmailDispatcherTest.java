@@ -0,0 +1,147 @@
+package com.juahaki.juahaki.service.email;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmailDispatcherTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final Queue<String> sent = new ConcurrentLinkedQueue<>();
+    private final CountDownLatch done = new CountDownLatch(1);
+    private EmailDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        dispatcher.destroy();
+    }
+
+    @Test
+    void retriesFailingStepBeforeStartingTheNext() throws InterruptedException {
+        dispatcher = new EmailDispatcher(registry, 2, 5, 1);
+        AtomicInteger attempts = new AtomicInteger();
+
+        dispatcher.dispatch(List.of(
+                new EmailDispatcher.Step("signup-otp", failing(attempts, 2, "otp")),
+                new EmailDispatcher.Step("welcome", () -> sent.add("welcome")),
+                new EmailDispatcher.Step("done", done::countDown)));
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(3, attempts.get());
+        assertEquals(List.of("otp", "welcome"), List.copyOf(sent));
+        assertEquals(2.0, count("signup-otp", "retried"));
+        assertEquals(1.0, count("signup-otp", "sent"));
+        assertEquals(1.0, count("welcome", "sent"));
+    }
+
+    @Test
+    void givesUpAfterMaxAttemptsAndMovesOn() throws InterruptedException {
+        dispatcher = new EmailDispatcher(registry, 2, 3, 1);
+        AtomicInteger attempts = new AtomicInteger();
+
+        dispatcher.dispatch(List.of(
+                new EmailDispatcher.Step("signup-otp", failing(attempts, Integer.MAX_VALUE, "otp")),
+                new EmailDispatcher.Step("welcome", () -> sent.add("welcome")),
+                new EmailDispatcher.Step("done", done::countDown)));
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(3, attempts.get());
+        assertEquals(List.of("welcome"), List.copyOf(sent));
+        assertEquals(2.0, count("signup-otp", "retried"));
+        assertEquals(1.0, count("signup-otp", "failed"));
+    }
+
+    @Test
+    void sendsOnlyAfterCommit() throws InterruptedException {
+        dispatcher = new EmailDispatcher(registry, 2, 5, 1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        new TransactionTemplate(new NoOpTransactionManager()).executeWithoutResult(status -> {
+            dispatcher.dispatchAfterCommit(List.of(new EmailDispatcher.Step("signup-otp", started::countDown)));
+            try {
+                assertFalse(started.await(200, TimeUnit.MILLISECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void rolledBackTransactionSendsNothing() throws InterruptedException {
+        // One thread, so the probe below runs after anything queued before it
+        dispatcher = new EmailDispatcher(registry, 1, 5, 1);
+
+        new TransactionTemplate(new NoOpTransactionManager()).executeWithoutResult(status -> {
+            dispatcher.dispatchAfterCommit(List.of(
+                    new EmailDispatcher.Step("signup-otp", () -> sent.add("otp")),
+                    new EmailDispatcher.Step("welcome", () -> sent.add("welcome"))));
+            status.setRollbackOnly();
+        });
+        dispatcher.dispatch(List.of(new EmailDispatcher.Step("probe", done::countDown)));
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(sent.isEmpty());
+    }
+
+    @Test
+    void dispatchesImmediatelyWithoutTransaction() throws InterruptedException {
+        dispatcher = new EmailDispatcher(registry, 1, 5, 1);
+
+        dispatcher.dispatchAfterCommit(List.of(new EmailDispatcher.Step("welcome", done::countDown)));
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    private Runnable failing(AtomicInteger attempts, int failures, String name) {
+        return () -> {
+            if (attempts.incrementAndGet() <= failures) {
+                throw new IllegalStateException("SMTP unavailable");
+            }
+            sent.add(name);
+        };
+    }
+
+    private double count(String email, String result) {
+        return registry.get("email.dispatch").tag("email", email).tag("result", result).counter().count();
+    }
+
+    /**
+     * Just enough of a transaction manager to drive synchronization callbacks
+     */
+    private static final class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.juahaki.juahaki.service.otp.store;
+
+import com.juahaki.juahaki.enums.OtpType;
+import com.juahaki.juahaki.model.user.User;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InMemoryOtpStoreTest extends OtpStoreContractTest {
+
+    private static final long TICK_MILLIS = 1000;
+
+    private final MutableClock clock = new MutableClock();
+    private InMemoryOtpStore store;
+
+    @Override
+    protected OtpStore createStore() {
+        store = new InMemoryOtpStore(clock, TICK_MILLIS);
+        return store;
+    }
+
+    @Override
+    protected void elapse(Duration duration) {
+        clock.now = clock.now.plus(duration);
+    }
+
+    @Test
+    void wheelDropsEntriesOnceTheyExpire() {
+        User other = User.builder().id(2L).email("john@example.com").build();
+        store.issue(other, OtpType.EMAIL_VERIFICATION, "AB12CD", Duration.ofMinutes(1));
+        store.issue(other, OtpType.PASSWORD_RESET, "EF34GH", Duration.ofMinutes(5));
+
+        elapse(Duration.ofSeconds(59));
+        store.expireDue();
+        assertEquals(2, store.size());
+
+        elapse(Duration.ofSeconds(2));
+        store.expireDue();
+        assertEquals(1, store.size());
+
+        elapse(Duration.ofMinutes(5));
+        store.expireDue();
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void consumedEntriesLeaveTheMap() {
+        User other = User.builder().id(2L).email("john@example.com").build();
+        store.issue(other, OtpType.EMAIL_VERIFICATION, "AB12CD", Duration.ofMinutes(1));
+
+        store.verify("john@example.com", OtpType.EMAIL_VERIFICATION, "AB12CD", MAX_ATTEMPTS);
+        assertEquals(0, store.size());
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
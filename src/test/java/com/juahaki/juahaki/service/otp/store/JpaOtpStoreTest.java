@@ -0,0 +1,91 @@
+package com.juahaki.juahaki.service.otp.store;
+
+import com.juahaki.juahaki.enums.OtpType;
+import com.juahaki.juahaki.model.user.User;
+import com.juahaki.juahaki.repository.otp.OtpRepository;
+import com.juahaki.juahaki.repository.user.UserRepository;
+import com.juahaki.juahaki.support.PostgresTestConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the store contract against PostgreSQL. Tests are not wrapped in a transaction because
+ * {@link JpaOtpStore#verify} commits in its own; tables are emptied after each test instead.
+ */
+@DataJpaTest(properties = "spring.config.on-not-found=ignore")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PostgresTestConfiguration.class, JpaOtpStore.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class JpaOtpStoreTest extends OtpStoreContractTest {
+
+    @Autowired
+    private JpaOtpStore store;
+
+    @Autowired
+    private OtpRepository otpRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    protected OtpStore createStore() {
+        return store;
+    }
+
+    @Override
+    protected void elapse(Duration duration) {
+        // Rows carry their own timestamps, so age them instead of moving a clock
+        jdbcTemplate.update("UPDATE otps SET created_at = created_at - make_interval(secs => ?),"
+                + " expires_at = expires_at - make_interval(secs => ?)",
+                duration.toMillis() / 1000.0, duration.toMillis() / 1000.0);
+    }
+
+    @Override
+    protected User saveUser(User user) {
+        user.setId(null);
+        return userRepository.save(user);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        otpRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void rowsAreStoredUnderTheNormalizedEmail() {
+        User other = saveUser(User.builder().username("john").email(" John@Example.com ").build());
+        store.issue(other, OtpType.EMAIL_VERIFICATION, "AB12CD", TTL);
+
+        assertEquals("john@example.com", jdbcTemplate.queryForObject("SELECT email FROM otps", String.class));
+        assertEquals(OtpVerification.VALID,
+                store.verify("john@example.com", OtpType.EMAIL_VERIFICATION, "AB12CD", MAX_ATTEMPTS));
+    }
+
+    @Test
+    void failedAttemptsArePersisted() {
+        User other = saveUser(User.builder().username("john").email("john@example.com").build());
+        store.issue(other, OtpType.PASSWORD_RESET, "AB12CD", TTL);
+
+        store.verify("john@example.com", OtpType.PASSWORD_RESET, "ZZZZZZ", MAX_ATTEMPTS);
+        store.verify("john@example.com", OtpType.PASSWORD_RESET, "YYYYYY", MAX_ATTEMPTS);
+
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT attempt_count FROM otps", Integer.class));
+    }
+}
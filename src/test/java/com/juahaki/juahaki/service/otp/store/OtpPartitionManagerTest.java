@@ -0,0 +1,213 @@
+package com.juahaki.juahaki.service.otp.store;
+
+import com.juahaki.juahaki.model.user.User;
+import com.juahaki.juahaki.repository.otp.OtpRepository;
+import com.juahaki.juahaki.repository.user.UserRepository;
+import com.juahaki.juahaki.support.PostgresTestConfiguration;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Walks one {@code otps} table through its life: Hibernate creates it as a plain table with
+ * rows in it, it is converted, new rows are routed, old partitions are dropped and a second
+ * boot leaves everything alone. The steps build on each other, so they run in order.
+ */
+@DataJpaTest(properties = "spring.config.on-not-found=ignore")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(PostgresTestConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class OtpPartitionManagerTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private OtpRepository otpRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Long userId;
+    private long oldRowId;
+    private long recentRowId;
+
+    @BeforeAll
+    void seedPlainTable() {
+        assertEquals("r", relationKind("otps"));
+        userId = userRepository.save(User.builder().username("jane").email("jane@example.com").build()).getId();
+        oldRowId = insertOtp(userId, TODAY.minusDays(5).atTime(12, 0));
+        recentRowId = insertOtp(userId, TODAY.minusDays(1).atTime(12, 0));
+    }
+
+    @Test
+    @Order(1)
+    void convertsExistingTableIntoPartitions() {
+        manager(2, Duration.ofHours(24)).initialize();
+
+        assertEquals("p", relationKind("otps"));
+        assertEquals(Set.of(partition(TODAY.minusDays(1)), partition(TODAY), partition(TODAY.plusDays(1)),
+                partition(TODAY.plusDays(2)), "otps_default"), partitions());
+        // The old table became the partition for everything up to its newest day
+        assertEquals(partition(TODAY.minusDays(1)), partitionOf(oldRowId));
+        assertEquals(partition(TODAY.minusDays(1)), partitionOf(recentRowId));
+        assertEquals(2, count("otps"));
+
+        assertEquals(List.of("id", "created_at"), jdbcTemplate.queryForList(
+                "SELECT a.attname FROM pg_index i JOIN unnest(i.indkey) WITH ORDINALITY k(attnum, position) ON true"
+                        + " JOIN pg_attribute a ON a.attrelid = i.indrelid AND a.attnum = k.attnum"
+                        + " WHERE i.indrelid = 'otps'::regclass AND i.indisprimary ORDER BY k.position",
+                String.class));
+        assertEquals(1, count("pg_indexes WHERE tablename = 'otps' AND indexname = 'otps_email_type_created_at_idx'"));
+        assertEquals(0, count("pg_class WHERE relname = 'otps_legacy'"));
+    }
+
+    @Test
+    @Order(2)
+    void identityContinuesAfterExistingIds() {
+        long id = insertOtp(userId, LocalDateTime.now());
+
+        assertTrue(id > Math.max(oldRowId, recentRowId));
+        assertEquals(partition(TODAY), partitionOf(id));
+    }
+
+    @Test
+    @Order(3)
+    void foreignKeysAreCopied() {
+        assertEquals(1, count("pg_constraint WHERE conrelid = 'otps'::regclass AND contype = 'f'"
+                + " AND confrelid = 'users'::regclass"));
+        assertThrows(DataIntegrityViolationException.class, () -> insertOtp(userId + 1000, LocalDateTime.now()));
+    }
+
+    @Test
+    @Order(4)
+    void rowsWithoutDailyPartitionGoToDefaultAndKeepTheirDay() {
+        LocalDate farDay = TODAY.plusDays(5);
+        long id = insertOtp(userId, farDay.atTime(12, 0));
+        assertEquals("otps_default", partitionOf(id));
+
+        manager(6, Duration.ofHours(24)).initialize();
+
+        Set<String> partitions = partitions();
+        assertTrue(partitions.contains(partition(TODAY.plusDays(4))));
+        assertTrue(partitions.contains(partition(TODAY.plusDays(6))));
+        // Attaching a partition over rows already in the default one would fail, so that day is skipped
+        assertFalse(partitions.contains(partition(farDay)));
+        assertEquals("otps_default", partitionOf(id));
+    }
+
+    @Test
+    @Order(5)
+    void secondBootIsNoOp() {
+        Set<String> partitionsBefore = partitions();
+        int rowsBefore = count("otps");
+
+        manager(2, Duration.ofHours(24)).initialize();
+
+        assertEquals("p", relationKind("otps"));
+        assertEquals(partitionsBefore, partitions());
+        assertEquals(rowsBefore, count("otps"));
+    }
+
+    @Test
+    @Order(6)
+    void maintainDropsPartitionsAndDefaultRowsPastRetention() {
+        // With no retention everything before now is due: yesterday's partition goes, today's stays
+        OtpPartitionManager manager = manager(2, Duration.ZERO);
+        manager.initialize();
+
+        Set<String> partitions = partitions();
+        assertFalse(partitions.contains(partition(TODAY.minusDays(1))));
+        assertTrue(partitions.contains(partition(TODAY)));
+        assertEquals(0, count("otps WHERE id IN (" + oldRowId + ", " + recentRowId + ")"));
+
+        long stale = insertOtp(userId, TODAY.minusDays(3).atTime(12, 0));
+        assertEquals("otps_default", partitionOf(stale));
+
+        manager.maintain();
+
+        assertEquals(0, count("otps WHERE id = " + stale));
+        assertEquals(1, count("otps_default"));
+    }
+
+    @AfterAll
+    void cleanUp() {
+        otpRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    private OtpPartitionManager manager(int premakeDays, Duration retention) {
+        OtpPartitionManager manager = new OtpPartitionManager(jdbcTemplate, transactionManager, otpRepository);
+        ReflectionTestUtils.setField(manager, "enabled", true);
+        ReflectionTestUtils.setField(manager, "premakeDays", premakeDays);
+        ReflectionTestUtils.setField(manager, "retention", retention);
+        ReflectionTestUtils.setField(manager, "schema", "public");
+        return manager;
+    }
+
+    private long insertOtp(Long userId, LocalDateTime createdAt) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO otps (otp_code, email, type, created_at, expires_at, is_used, attempt_count, is_expired,"
+                        + " user_id) VALUES ('AB12CD', 'jane@example.com', 'EMAIL_VERIFICATION', ?, ?, false, 0, false, ?)"
+                        + " RETURNING id",
+                Long.class, createdAt, createdAt.plusMinutes(10), userId);
+    }
+
+    private String relationKind(String table) {
+        return jdbcTemplate.queryForObject("SELECT relkind::text FROM pg_class WHERE relname = ?", String.class, table);
+    }
+
+    private Set<String> partitions() {
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid"
+                        + " WHERE i.inhparent = 'otps'::regclass", String.class));
+    }
+
+    private String partitionOf(long id) {
+        return jdbcTemplate.queryForObject("SELECT tableoid::regclass::text FROM otps WHERE id = ?", String.class, id);
+    }
+
+    private int count(String from) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM " + from, Integer.class);
+    }
+
+    private static String partition(LocalDate day) {
+        return "otps_p" + DateTimeFormatter.BASIC_ISO_DATE.format(day);
+    }
+}
@@ -0,0 +1,118 @@
+package com.juahaki.juahaki.service.otp.store;
+
+import com.juahaki.juahaki.enums.OtpType;
+import com.juahaki.juahaki.model.user.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Behaviour every {@link OtpStore} has to share. Implementations supply the store and a way
+ * to move its notion of time forward.
+ */
+abstract class OtpStoreContractTest {
+
+    protected static final String EMAIL = "jane@example.com";
+    protected static final Duration TTL = Duration.ofMinutes(10);
+    protected static final int MAX_ATTEMPTS = 3;
+
+    private OtpStore store;
+    private User user;
+
+    protected abstract OtpStore createStore();
+
+    protected abstract void elapse(Duration duration);
+
+    /**
+     * Stores that reference the user, like the otps foreign key, persist it here
+     */
+    protected User saveUser(User user) {
+        return user;
+    }
+
+    @BeforeEach
+    void setUp() {
+        store = createStore();
+        user = saveUser(User.builder().id(1L).username("jane").email(" Jane@Example.com ").build());
+    }
+
+    @Test
+    void verifyConsumesMatchingCode() {
+        store.issue(user, OtpType.EMAIL_VERIFICATION, "AB12CD", TTL);
+
+        assertEquals(OtpVerification.VALID, store.verify(EMAIL, OtpType.EMAIL_VERIFICATION, "AB12CD", MAX_ATTEMPTS));
+        assertEquals(OtpVerification.INVALID, store.verify(EMAIL, OtpType.EMAIL_VERIFICATION, "AB12CD", MAX_ATTEMPTS));
+    }
+
+    @Test
+    void wrongCodesInvalidateAfterMaxAttempts() {
+        store.issue(user, OtpType.EMAIL_VERIFICATION, "AB12CD", TTL);
+
+        for (int i = 1; i < MAX_ATTEMPTS; i++) {
+            assertEquals(OtpVerification.INVALID, store.verify(EMAIL, OtpType.EMAIL_VERIFICATION, "ZZZZZZ", MAX_ATTEMPTS));
+        }
+        assertEquals(OtpVerification.TOO_MANY_ATTEMPTS,
+                store.verify(EMAIL, OtpType.EMAIL_VERIFICATION, "ZZZZZZ", MAX_ATTEMPTS));
+        assertNotEquals(OtpVerification.VALID, store.verify(EMAIL, OtpType.EMAIL_VERIFICATION, "AB12CD", MAX_ATTEMPTS));
+    }
+
+    @Test
+    void reissueReplacesPreviousCode() {
+        store.issue(user, OtpType.PASSWORD_RESET, "OLD111", TTL);
+        store.issue(user, OtpType.PASSWORD_RESET, "NEW222", TTL);
+
+        assertFalse(store.isValid(EMAIL, OtpType.PASSWORD_RESET, "OLD111"));
+        assertEquals(OtpVerification.VALID, store.verify(EMAIL, OtpType.PASSWORD_RESET, "NEW222", MAX_ATTEMPTS));
+    }
+
+    @Test
+    void typesAreIndependent() {
+        store.issue(user, OtpType.EMAIL_VERIFICATION, "AB12CD", TTL);
+        store.issue(user, OtpType.PASSWORD_RESET, "EF34GH", TTL);
+
+        assertFalse(store.isValid(EMAIL, OtpType.PASSWORD_RESET, "AB12CD"));
+        assertEquals(OtpVerification.VALID, store.verify(EMAIL, OtpType.EMAIL_VERIFICATION, "AB12CD", MAX_ATTEMPTS));
+        assertTrue(store.isValid(EMAIL, OtpType.PASSWORD_RESET, "EF34GH"));
+    }
+
+    @Test
+    void invalidateRemovesActiveCode() {
+        store.issue(user, OtpType.PASSWORD_RESET, "AB12CD", TTL);
+        store.invalidate(EMAIL, OtpType.PASSWORD_RESET);
+
+        assertFalse(store.isValid(EMAIL, OtpType.PASSWORD_RESET, "AB12CD"));
+        assertEquals(OtpVerification.INVALID, store.verify(EMAIL, OtpType.PASSWORD_RESET, "AB12CD", MAX_ATTEMPTS));
+    }
+
+    @Test
+    void isValidDoesNotConsumeOrCountAttempts() {
+        store.issue(user, OtpType.PASSWORD_RESET, "AB12CD", TTL);
+
+        for (int i = 0; i < MAX_ATTEMPTS + 1; i++) {
+            assertTrue(store.isValid(EMAIL, OtpType.PASSWORD_RESET, "AB12CD"));
+            assertFalse(store.isValid(EMAIL, OtpType.PASSWORD_RESET, "ZZZZZZ"));
+        }
+        assertEquals(OtpVerification.VALID, store.verify(EMAIL, OtpType.PASSWORD_RESET, "AB12CD", MAX_ATTEMPTS));
+    }
+
+    @Test
+    void expiredCodeIsRejected() {
+        store.issue(user, OtpType.EMAIL_VERIFICATION, "AB12CD", TTL);
+        elapse(TTL.plusSeconds(1));
+
+        assertFalse(store.isValid(EMAIL, OtpType.EMAIL_VERIFICATION, "AB12CD"));
+        assertNotEquals(OtpVerification.VALID, store.verify(EMAIL, OtpType.EMAIL_VERIFICATION, "AB12CD", MAX_ATTEMPTS));
+    }
+
+    @Test
+    void unknownEmailIsInvalid() {
+        assertEquals(OtpVerification.INVALID, store.verify(EMAIL, OtpType.EMAIL_VERIFICATION, "AB12CD", MAX_ATTEMPTS));
+        assertFalse(store.isValid(EMAIL, OtpType.EMAIL_VERIFICATION, "AB12CD"));
+    }
+}
@@ -0,0 +1,201 @@
+package com.juahaki.juahaki.service.token;
+
+import com.juahaki.juahaki.exception.CustomException;
+import com.juahaki.juahaki.model.token.RefreshToken;
+import com.juahaki.juahaki.repository.token.RefreshTokenRepository;
+import com.juahaki.juahaki.support.PostgresTestConfiguration;
+import com.juahaki.juahaki.util.jwt.VerifiedToken;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Rotation and reuse detection against PostgreSQL. Each service instance has its own index,
+ * so two of them stand in for two application instances sharing the table.
+ */
+@DataJpaTest(properties = "spring.config.on-not-found=ignore")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(PostgresTestConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class RefreshTokenServiceTest {
+
+    private static final long USER_ID = 42L;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry registry;
+    private RefreshTokenService service;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        service = newInstance(registry);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        refreshTokenRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void rotateSucceedsOnce() {
+        UUID familyId = service.startFamily(USER_ID, "t0");
+
+        assertEquals(familyId, service.rotate(token("t0"), "t1"));
+        assertEquals(familyId, service.rotate(token("t1"), "t2"));
+
+        assertEquals(3, count("family_id = '" + familyId + "'"));
+        assertEquals(0, count("revoked_at IS NOT NULL"));
+        assertEquals(0.0, reuseCount(registry));
+    }
+
+    @Test
+    void rotateRejectsUnknownTokenAndOtherUser() {
+        service.startFamily(USER_ID, "t0");
+
+        assertThrows(CustomException.class, () -> service.rotate(token("missing"), "t1"));
+        assertThrows(CustomException.class, () -> service.rotate(token("t0", USER_ID + 1), "t1"));
+        assertEquals(1, count("true"));
+    }
+
+    @Test
+    void replayingParentRevokesWholeFamily() {
+        UUID familyId = service.startFamily(USER_ID, "t0");
+        service.rotate(token("t0"), "t1");
+
+        assertThrows(CustomException.class, () -> service.rotate(token("t0"), "t2"));
+
+        assertEquals(2, count("family_id = '" + familyId + "' AND revoked_at IS NOT NULL"));
+        assertEquals(0, count("revoked_at IS NULL"));
+        assertEquals(1.0, reuseCount(registry));
+        // The legitimate child is now dead as well
+        assertThrows(CustomException.class, () -> service.rotate(token("t1"), "t3"));
+    }
+
+    @Test
+    void replayOnAnotherInstanceIsCaughtByTheUniqueParent() {
+        UUID familyId = service.startFamily(USER_ID, "t0");
+        service.rotate(token("t0"), "t1");
+
+        SimpleMeterRegistry otherRegistry = new SimpleMeterRegistry();
+        RefreshTokenService other = newInstance(otherRegistry);
+        // Cold index: the row looks unrotated, so only the insert can notice the replay
+        assertThrows(CustomException.class, () -> other.rotate(token("t0"), "t2"));
+
+        assertEquals(1.0, reuseCount(otherRegistry));
+        assertEquals(2, count("family_id = '" + familyId + "' AND revoked_at IS NOT NULL"));
+        assertEquals(0, count("token_hash = '" + hash("t2") + "'"));
+    }
+
+    @Test
+    void duplicateTokenHashGoesThroughReuseHandling() {
+        service.startFamily(USER_ID, "taken");
+        UUID familyId = service.startFamily(USER_ID, "t0");
+
+        assertThrows(CustomException.class, () -> service.rotate(token("t0"), "taken"));
+
+        assertEquals(1.0, reuseCount(registry));
+        assertEquals(1, count("family_id = '" + familyId + "' AND revoked_at IS NOT NULL"));
+    }
+
+    @Test
+    void insertIntoRevokedFamilyReturnsZero() {
+        UUID familyId = service.startFamily(USER_ID, "t0");
+        refreshTokenRepository.revokeFamily(familyId, LocalDateTime.now());
+
+        LocalDateTime now = LocalDateTime.now();
+        assertEquals(0, refreshTokenRepository.insertUnlessFamilyRevoked(
+                hash("t1"), hash("t0"), familyId, USER_ID, now.plusDays(1), now));
+        assertEquals(1, refreshTokenRepository.insertUnlessFamilyRevoked(
+                hash("t1"), null, UUID.randomUUID(), USER_ID, now.plusDays(1), now));
+        assertEquals(1, count("family_id = '" + familyId + "'"));
+    }
+
+    @Test
+    void revocationOnAnotherInstanceBeatsWarmIndex() {
+        UUID familyId = service.startFamily(USER_ID, "t0");
+        service.rotate(token("t0"), "t1");
+
+        newInstance(new SimpleMeterRegistry()).revokeFamily(token("t1"));
+
+        // This instance still has t1 cached as live; the insert refuses it
+        assertThrows(CustomException.class, () -> service.rotate(token("t1"), "t2"));
+        assertEquals(2, count("family_id = '" + familyId + "'"));
+        assertEquals(0.0, reuseCount(registry));
+    }
+
+    @Test
+    void deleteExpiredBatchHonoursLimit() {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 5; i++) {
+            save("expired-" + i, now.minusMinutes(1));
+        }
+        save("live", now.plusDays(1));
+
+        assertEquals(2, refreshTokenRepository.deleteExpiredBatch(now, 2));
+        assertEquals(4, count("true"));
+
+        ReflectionTestUtils.setField(service, "purgeBatchSize", 2);
+        service.purgeExpired();
+
+        assertEquals(1, count("true"));
+        assertEquals(1, count("token_hash = '" + hash("live") + "'"));
+    }
+
+    private RefreshTokenService newInstance(SimpleMeterRegistry meterRegistry) {
+        RefreshTokenService instance = new RefreshTokenService(refreshTokenRepository, meterRegistry, 1000, 3600);
+        ReflectionTestUtils.setField(instance, "refreshExpirationMs", 86_400_000L);
+        ReflectionTestUtils.setField(instance, "purgeBatchSize", 1000);
+        return instance;
+    }
+
+    private void save(String tokenId, LocalDateTime expiresAt) {
+        refreshTokenRepository.save(RefreshToken.builder()
+                .tokenHash(hash(tokenId))
+                .familyId(UUID.randomUUID())
+                .userId(USER_ID)
+                .expiresAt(expiresAt)
+                .build());
+    }
+
+    private int count(String where) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM refresh_tokens WHERE " + where, Integer.class);
+    }
+
+    private static double reuseCount(SimpleMeterRegistry meterRegistry) {
+        return meterRegistry.get("jwt.refresh.reuse_detected").counter().count();
+    }
+
+    private static VerifiedToken token(String tokenId) {
+        return token(tokenId, USER_ID);
+    }
+
+    private static VerifiedToken token(String tokenId, Long userId) {
+        return VerifiedToken.builder().tokenId(tokenId).userId(userId).type("refresh").build();
+    }
+
+    private static String hash(String tokenId) {
+        return ReflectionTestUtils.invokeMethod(RefreshTokenService.class, "hash", tokenId);
+    }
+}
@@ -0,0 +1,96 @@
+package com.juahaki.juahaki.service.token;
+
+import com.juahaki.juahaki.repository.token.RevokedTokenRepository;
+import com.juahaki.juahaki.support.PostgresTestConfiguration;
+import com.juahaki.juahaki.util.jwt.VerifiedToken;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Revocation against PostgreSQL; two service instances stand in for two application
+ * instances handling the same logout.
+ */
+@DataJpaTest(properties = "spring.config.on-not-found=ignore")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(PostgresTestConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class TokenRevocationServiceTest {
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @AfterEach
+    void cleanUp() {
+        revokedTokenRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void revokingTwiceOnDifferentInstancesKeepsOneRow() {
+        TokenRevocationService first = newInstance();
+        TokenRevocationService second = newInstance();
+        VerifiedToken token = token("jti-1");
+
+        first.revoke(token);
+        second.revoke(token);
+
+        assertEquals(1, revokedTokenRepository.count());
+        assertTrue(first.isRevoked(token));
+        assertTrue(second.isRevoked(token));
+    }
+
+    @Test
+    void insertIfAbsentReportsExistingRow() {
+        LocalDateTime now = LocalDateTime.now();
+
+        assertEquals(1, revokedTokenRepository.insertIfAbsent("jti-1", 7L, now.plusHours(1), now));
+        assertEquals(0, revokedTokenRepository.insertIfAbsent("jti-1", 7L, now.plusHours(1), now));
+        assertEquals(1, revokedTokenRepository.count());
+    }
+
+    @Test
+    void revocationIsPickedUpByOtherInstances() {
+        TokenRevocationService first = newInstance();
+        TokenRevocationService second = newInstance();
+        VerifiedToken token = token("jti-2");
+
+        first.revoke(token);
+        assertFalse(second.isRevoked(token));
+
+        second.syncFromDatabase();
+        assertTrue(second.isRevoked(token));
+        assertTrue(newInstance().isRevoked(token));
+    }
+
+    private TokenRevocationService newInstance() {
+        TokenRevocationService service = new TokenRevocationService(revokedTokenRepository);
+        ReflectionTestUtils.setField(service, "expectedEntries", 1_000L);
+        ReflectionTestUtils.setField(service, "falsePositiveRate", 0.01);
+        service.loadRevokedTokens();
+        return service;
+    }
+
+    private static VerifiedToken token(String jti) {
+        return VerifiedToken.builder()
+                .tokenId(jti)
+                .userId(7L)
+                .type("access")
+                .expiration(new Date(System.currentTimeMillis() + 3_600_000))
+                .build();
+    }
+}
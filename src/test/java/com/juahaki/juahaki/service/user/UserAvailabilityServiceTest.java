@@ -0,0 +1,205 @@
+package com.juahaki.juahaki.service.user;
+
+import com.juahaki.juahaki.model.user.User;
+import com.juahaki.juahaki.repository.user.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserAvailabilityServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    // Stands in for the users table; the repository streams a snapshot of it
+    private final List<String> usernames = new CopyOnWriteArrayList<>();
+    private UserAvailabilityService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new UserAvailabilityService(userRepository, registry);
+        ReflectionTestUtils.setField(service, "expectedEntries", 1_000L);
+        ReflectionTestUtils.setField(service, "falsePositiveRate", 0.001);
+        ReflectionTestUtils.setField(service, "staleRebuildFraction", 0.1);
+        ReflectionTestUtils.setField(service, "maxAgeMs", 3_600_000L);
+    }
+
+    @Test
+    void lookupsGoToDatabaseUntilFirstBuild() {
+        when(userRepository.existsByUsername("jane")).thenReturn(true);
+
+        assertTrue(service.isUsernameTaken(" Jane "));
+        assertFalse(service.isUsernameKnownFree("nobody"));
+        assertEquals(1.0, lookups("database"));
+    }
+
+    @Test
+    void negativeAnswersNeverReachDatabase() {
+        stubTable("jane", "john");
+        service.load();
+
+        assertFalse(service.isUsernameTaken("nobody"));
+        assertFalse(service.isEmailTaken("nobody@example.com"));
+        assertTrue(service.isUsernameKnownFree("nobody"));
+        verify(userRepository, never()).existsByUsername(anyString());
+        verify(userRepository, never()).existsByEmail(anyString());
+        assertEquals(3.0, lookups("filter"));
+    }
+
+    @Test
+    void maybeTakenFallsThroughToDatabase() {
+        stubTable("jane");
+        when(userRepository.existsByUsername("jane")).thenReturn(true);
+        when(userRepository.existsByEmail("jane@example.com")).thenReturn(true);
+        service.load();
+
+        assertTrue(service.isUsernameTaken("JANE"));
+        assertTrue(service.isEmailTaken(" Jane@Example.com"));
+        assertFalse(service.isUsernameKnownFree("jane"));
+        assertEquals(2.0, lookups("database"));
+    }
+
+    @Test
+    void recordedUserIsNoLongerKnownFree() {
+        stubTable();
+        service.load();
+        assertTrue(service.isUsernameKnownFree("mary"));
+
+        service.recordUser(User.builder().username("Mary").email("mary@example.com").build());
+
+        assertFalse(service.isUsernameKnownFree("mary"));
+    }
+
+    @Test
+    void userRecordedWhileTableIsStreamedIsKept() {
+        when(userRepository.count()).thenReturn(1L);
+        when(userRepository.streamUsernamesAndEmails()).thenAnswer(invocation -> Stream.<Object[]>of(
+                        new Object[]{"jane", "jane@example.com"})
+                // Saved after the stream started, so the stream itself never returns it
+                .peek(row -> service.recordUser(User.builder().username("late").email("late@example.com").build())));
+
+        service.load();
+
+        assertFalse(service.isUsernameKnownFree("jane"));
+        assertFalse(service.isUsernameKnownFree("late"));
+    }
+
+    @Test
+    void staleEntriesTriggerRebuildAboveThreshold() {
+        stubTable("jane");
+        service.load();
+
+        // The threshold never drops below 100 entries
+        service.recordRemoved(100);
+        service.rebuildIfStale();
+        verify(userRepository, times(1)).streamUsernamesAndEmails();
+
+        service.recordRemoved(1);
+        service.rebuildIfStale();
+        verify(userRepository, times(2)).streamUsernamesAndEmails();
+        assertEquals(0.0, staleEntries());
+    }
+
+    @Test
+    void removalsDuringRebuildAreStillCounted() {
+        when(userRepository.count()).thenReturn(1L);
+        when(userRepository.streamUsernamesAndEmails()).thenAnswer(invocation -> Stream.<Object[]>of(
+                        new Object[]{"jane", "jane@example.com"})
+                .peek(row -> service.recordRemoved(7)));
+        service.recordRemoved(3);
+
+        service.load();
+
+        // The 3 from before the rebuild are gone; the 7 removed meanwhile may still be in the filter
+        assertEquals(7.0, staleEntries());
+    }
+
+    @Test
+    void oldFilterIsRebuilt() {
+        stubTable("jane");
+        service.load();
+
+        service.rebuildIfStale();
+        verify(userRepository, times(1)).streamUsernamesAndEmails();
+
+        ReflectionTestUtils.setField(service, "maxAgeMs", -1L);
+        service.rebuildIfStale();
+        verify(userRepository, times(2)).streamUsernamesAndEmails();
+    }
+
+    @Test
+    void nothingToRebuildBeforeFirstBuild() {
+        service.recordRemoved(1_000);
+
+        service.rebuildIfStale();
+
+        verify(userRepository, never()).streamUsernamesAndEmails();
+    }
+
+    @Test
+    void usersRecordedAcrossRebuildsAreNeverLost() throws InterruptedException {
+        stubTable();
+        service.load();
+
+        AtomicBoolean done = new AtomicBoolean();
+        Thread rebuilder = new Thread(() -> {
+            while (!done.get()) {
+                service.load();
+            }
+        });
+        rebuilder.start();
+        List<String> recorded = new ArrayList<>();
+        try {
+            for (int i = 0; i < 5_000; i++) {
+                String username = "user" + i;
+                // Saved first, then recorded, as the callers do
+                usernames.add(username);
+                service.recordUser(User.builder().username(username).email(username + "@example.com").build());
+                recorded.add(username);
+            }
+        } finally {
+            done.set(true);
+            rebuilder.join();
+        }
+
+        for (String username : recorded) {
+            assertFalse(service.isUsernameKnownFree(username), username);
+        }
+    }
+
+    private void stubTable(String... initial) {
+        usernames.addAll(List.of(initial));
+        when(userRepository.count()).thenAnswer(invocation -> (long) usernames.size());
+        when(userRepository.streamUsernamesAndEmails()).thenAnswer(invocation -> usernames.stream()
+                .map(username -> new Object[]{username, username + "@example.com"}));
+    }
+
+    private double lookups(String source) {
+        return registry.get("users.availability.lookups").tag("source", source).counter().count();
+    }
+
+    private double staleEntries() {
+        return registry.get("users.availability.stale_entries").gauge().value();
+    }
+}
@@ -0,0 +1,123 @@
+package com.juahaki.juahaki.service.user;
+
+import com.juahaki.juahaki.model.user.User;
+import com.juahaki.juahaki.repository.user.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UsernameAllocatorTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private IUserAvailabilityService userAvailabilityService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private UsernameAllocator allocator;
+
+    @BeforeEach
+    void setUp() {
+        allocator = new UsernameAllocator(userRepository, userAvailabilityService, transactionManager, jdbcTemplate);
+    }
+
+    @Test
+    void knownFreeBaseSkipsTheQuery() {
+        when(userAvailabilityService.isUsernameKnownFree("jane")).thenReturn(true);
+
+        assertEquals("jane", allocator.nextFreeUsername("jane", Set.of()));
+        verify(userRepository, never()).findUsernamesInRange(any(), any());
+    }
+
+    @Test
+    void baseIsUsedWhenOnlyLongerNamesShareThePrefix() {
+        when(userRepository.findUsernamesInRange("jane", "janf")).thenReturn(List.of("janedoe", "jane7"));
+
+        assertEquals("jane", allocator.nextFreeUsername("jane", Set.of()));
+    }
+
+    @Test
+    void lowestFreeSuffixIsChosen() {
+        when(userRepository.findUsernamesInRange("jane", "janf"))
+                .thenReturn(List.of("jane", "jane1", "jane2", "jane4", "jane01", "janedoe", "jane2x"));
+
+        assertEquals("jane3", allocator.nextFreeUsername("jane", Set.of()));
+    }
+
+    @Test
+    void namesLostToConcurrentInsertsCountAsTaken() {
+        when(userRepository.findUsernamesInRange("jane", "janf")).thenReturn(List.of("jane"));
+
+        assertEquals("jane3", allocator.nextFreeUsername("jane", Set.of("jane1", "jane2")));
+        verify(userAvailabilityService, never()).isUsernameKnownFree(any());
+    }
+
+    @Test
+    void upperBoundBumpsTheLastCharacter() {
+        assertEquals("janf", UsernameAllocator.upperBound("jane"));
+        assertEquals("user:", UsernameAllocator.upperBound("user9"));
+        assertEquals("ab{", UsernameAllocator.upperBound("abz"));
+    }
+
+    @Test
+    void suffixOfOnlyAcceptsCanonicalNumbers() {
+        assertEquals(1, UsernameAllocator.suffixOf("jane", "jane1"));
+        assertEquals(42, UsernameAllocator.suffixOf("jane", "jane42"));
+        assertEquals(999_999_999, UsernameAllocator.suffixOf("jane", "jane999999999"));
+
+        assertEquals(-1, UsernameAllocator.suffixOf("jane", "jane"));
+        assertEquals(-1, UsernameAllocator.suffixOf("jane", "jane0"));
+        assertEquals(-1, UsernameAllocator.suffixOf("jane", "jane07"));
+        assertEquals(-1, UsernameAllocator.suffixOf("jane", "jane1x"));
+        assertEquals(-1, UsernameAllocator.suffixOf("jane", "janedoe"));
+        assertEquals(-1, UsernameAllocator.suffixOf("jane", "jan1"));
+        assertEquals(-1, UsernameAllocator.suffixOf("jane", "jane1234567890"));
+    }
+
+    @Test
+    void lostRaceRetriesWithTheNextSuffix() {
+        User user = User.builder().email("Jane.Doe@example.com").build();
+        when(userRepository.findUsernamesInRange("janedoe", "janedof")).thenReturn(List.of("janedoe"));
+        when(userRepository.saveAndFlush(user))
+                .thenThrow(new DataIntegrityViolationException("duplicate username"))
+                .thenReturn(user);
+        when(userRepository.existsByUsername("janedoe1")).thenReturn(true);
+
+        assertSame(user, allocator.saveWithUniqueUsername(user, user.getEmail()));
+        assertEquals("janedoe2", user.getUsername());
+        verify(userAvailabilityService).recordUser(user);
+    }
+
+    @Test
+    void otherConstraintFailuresAreRethrown() {
+        User user = User.builder().email("jane@example.com").build();
+        when(userAvailabilityService.isUsernameKnownFree("jane")).thenReturn(true);
+        when(userRepository.saveAndFlush(user)).thenThrow(new DataIntegrityViolationException("duplicate email"));
+        when(userRepository.existsByUsername("jane")).thenReturn(false);
+
+        assertThrows(DataIntegrityViolationException.class, () -> allocator.saveWithUniqueUsername(user, user.getEmail()));
+    }
+}
@@ -0,0 +1,214 @@
+package com.juahaki.juahaki.util.jwt;
+
+import com.juahaki.juahaki.enums.Role;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The codec has to stay interchangeable with jjwt: tokens it writes must parse with jjwt and
+ * tokens jjwt writes must decode here, in both claim profiles.
+ */
+class HmacTokenCodecTest {
+
+    private static final SecretKey KEY = Keys.hmacShaKeyFor(
+            "codec-test-secret-that-is-long-enough".getBytes(StandardCharsets.UTF_8));
+    private static final SecretKey OTHER_KEY = Keys.hmacShaKeyFor(
+            "another-secret-that-is-also-long-enough".getBytes(StandardCharsets.UTF_8));
+
+    private static final String TOKEN_ID = "0f8b4f1e-5d7c-4d1a-9a0e-2c6f3b8e9d41";
+    private static final String SUBJECT = "jane.doe";
+    private static final long USER_ID = 4242L;
+    private static final String EMAIL = "jane.doe@example.com";
+    private static final int VERSION = 3;
+
+    private final HmacTokenCodec codec = new HmacTokenCodec(KEY);
+    private final JwtParser parser = Jwts.parser().verifyWith(KEY).build();
+
+    @ParameterizedTest
+    @EnumSource(ClaimProfile.class)
+    void accessTokenFromCodecParsesWithJjwt(ClaimProfile profile) {
+        long now = nowSeconds();
+        String token = codec.encode(profile, TOKEN_ID, SUBJECT, USER_ID, EMAIL, Role.ADMIN, false, VERSION,
+                now, now + 900);
+
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+
+        assertEquals(TOKEN_ID, claims.getId());
+        assertEquals(SUBJECT, claims.getSubject());
+        assertEquals(USER_ID, claims.get(profile.getUserIdKey(), Long.class));
+        assertEquals(profile.formatRole(Role.ADMIN), claims.get(profile.getRoleKey(), String.class));
+        assertEquals(VERSION, claims.get(profile.getVersionKey(), Integer.class));
+        assertNull(claims.get(profile.getTypeKey()));
+        assertEquals(profile == ClaimProfile.STANDARD ? EMAIL : null, claims.get("email", String.class));
+        assertEquals(profile == ClaimProfile.COMPACT ? ClaimProfile.COMPACT_VERSION : null,
+                claims.get(ClaimProfile.COMPACT_MARKER, Integer.class));
+        assertEquals(new Date(now * 1000), claims.getIssuedAt());
+        assertEquals(new Date((now + 900) * 1000), claims.getExpiration());
+    }
+
+    @ParameterizedTest
+    @EnumSource(ClaimProfile.class)
+    void refreshTokenFromCodecParsesWithJjwt(ClaimProfile profile) {
+        long now = nowSeconds();
+        String token = codec.encode(profile, TOKEN_ID, SUBJECT, USER_ID, EMAIL, Role.USER, true, VERSION,
+                now, now + 86_400);
+
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+
+        assertEquals(profile.getRefreshType(), claims.get(profile.getTypeKey(), String.class));
+        assertEquals(EMAIL, claims.get("email", String.class));
+        assertEquals(profile.formatRole(Role.USER), claims.get(profile.getRoleKey(), String.class));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ClaimProfile.class)
+    void jjwtTokenDecodesWithCodec(ClaimProfile profile) {
+        long now = nowSeconds();
+        for (boolean refresh : new boolean[] { false, true }) {
+            String token = jjwtToken(profile, refresh, now, now + 900, KEY);
+
+            VerifiedToken decoded = codec.decode(token);
+
+            assertEquals(TOKEN_ID, decoded.getTokenId());
+            assertEquals(SUBJECT, decoded.getSubject());
+            assertEquals(USER_ID, decoded.getUserId());
+            assertEquals(Role.ADMIN, decoded.getRole());
+            assertEquals(VERSION, decoded.getTokenVersion());
+            assertEquals(refresh, decoded.isRefreshToken());
+            assertEquals(profile.includesEmail(refresh) ? EMAIL : null, decoded.getEmail());
+            assertEquals(new Date(now * 1000), decoded.getIssuedAt());
+            assertEquals(new Date((now + 900) * 1000), decoded.getExpiration());
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(ClaimProfile.class)
+    void codecWritesTheSameTokenAsJjwt(ClaimProfile profile) {
+        long now = nowSeconds();
+        for (boolean refresh : new boolean[] { false, true }) {
+            String expected = jjwtToken(profile, refresh, now, now + 900, KEY);
+            String actual = codec.encode(profile, TOKEN_ID, SUBJECT, USER_ID, EMAIL, Role.ADMIN, refresh, VERSION,
+                    now, now + 900);
+            assertEquals(expected, actual);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(ClaimProfile.class)
+    void expiredTokensAreLeftToJjwt(ClaimProfile profile) {
+        long now = nowSeconds();
+        String fromCodec = codec.encode(profile, TOKEN_ID, SUBJECT, USER_ID, EMAIL, Role.USER, false, VERSION,
+                now - 7200, now - 3600);
+        String fromJjwt = jjwtToken(profile, false, now - 7200, now - 3600, KEY);
+
+        assertNull(codec.decode(fromCodec));
+        assertNull(codec.decode(fromJjwt));
+        assertThrows(ExpiredJwtException.class, () -> parser.parseSignedClaims(fromCodec));
+        assertThrows(ExpiredJwtException.class, () -> parser.parseSignedClaims(fromJjwt));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ClaimProfile.class)
+    void badSignaturesAreRejectedByBoth(ClaimProfile profile) {
+        long now = nowSeconds();
+        String token = codec.encode(profile, TOKEN_ID, SUBJECT, USER_ID, EMAIL, Role.USER, false, VERSION,
+                now, now + 900);
+        String otherKey = jjwtToken(profile, false, now, now + 900, OTHER_KEY);
+        String tamperedSignature = replaceCharAt(token, token.lastIndexOf('.') + 1);
+        String tamperedPayload = replaceCharAt(token, token.indexOf('.') + 5);
+
+        for (String forged : new String[] { otherKey, tamperedSignature, tamperedPayload }) {
+            assertThrows(SignatureException.class, () -> codec.decode(forged));
+            assertThrows(SignatureException.class, () -> parser.parseSignedClaims(forged));
+        }
+    }
+
+    @Test
+    void tokensOutsideTheFastPathAreLeftToJjwt() {
+        long now = nowSeconds();
+        String unknownClaim = Jwts.builder()
+                .id(TOKEN_ID)
+                .subject(SUBJECT)
+                .claim("scope", "admin")
+                .expiration(new Date((now + 900) * 1000))
+                .signWith(KEY)
+                .compact();
+        String otherAlgorithm = Jwts.builder()
+                .subject(SUBJECT)
+                .expiration(new Date((now + 900) * 1000))
+                .signWith(Keys.hmacShaKeyFor(new byte[48]))
+                .compact();
+
+        assertNull(codec.decode(unknownClaim));
+        assertNull(codec.decode(otherAlgorithm));
+        assertFalse(parser.parseSignedClaims(unknownClaim).getPayload().isEmpty());
+    }
+
+    @Test
+    void escapedAndNonAsciiStringsRoundTrip() {
+        long now = nowSeconds();
+        String subject = "jané \"quoted\" \\ \u0001 😀";
+        String token = codec.encode(ClaimProfile.STANDARD, TOKEN_ID, subject, USER_ID, EMAIL, Role.USER, false,
+                VERSION, now, now + 900);
+
+        assertEquals(subject, parser.parseSignedClaims(token).getPayload().getSubject());
+        assertEquals(subject, codec.decode(token).getSubject());
+        assertTrue(codec.decode(token).getExpiration().after(new Date()));
+    }
+
+    /**
+     * Same claims and order {@link JwtUtil} and the codec use
+     */
+    private static String jjwtToken(ClaimProfile profile, boolean refresh, long issuedAt, long expiresAt,
+                                    SecretKey key) {
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put(profile.getUserIdKey(), USER_ID);
+        if (profile.includesEmail(refresh)) {
+            claims.put("email", EMAIL);
+        }
+        claims.put(profile.getRoleKey(), profile.formatRole(Role.ADMIN));
+        if (refresh) {
+            claims.put(profile.getTypeKey(), profile.getRefreshType());
+        }
+        claims.put(profile.getVersionKey(), VERSION);
+        if (profile == ClaimProfile.COMPACT) {
+            claims.put(ClaimProfile.COMPACT_MARKER, ClaimProfile.COMPACT_VERSION);
+        }
+        return Jwts.builder()
+                .id(TOKEN_ID)
+                .subject(SUBJECT)
+                .claims(claims)
+                .issuedAt(new Date(issuedAt * 1000))
+                .expiration(new Date(expiresAt * 1000))
+                .signWith(key)
+                .compact();
+    }
+
+    private static String replaceCharAt(String token, int index) {
+        char replacement = token.charAt(index) == 'A' ? 'B' : 'A';
+        return token.substring(0, index) + replacement + token.substring(index + 1);
+    }
+
+    private static long nowSeconds() {
+        return System.currentTimeMillis() / 1000;
+    }
+}
@@ -0,0 +1,189 @@
+package com.juahaki.juahaki.util.jwt;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TokenPreScreenerTest {
+
+    private static final String SIGNATURE = "c2lnbmF0dXJlLXBsYWNlaG9sZGVyLWJ5dGVz";
+    private static final long SKEW_SECONDS = 60;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private TokenPreScreener screener;
+
+    @BeforeEach
+    void setUp() {
+        screener = new TokenPreScreener(registry);
+        ReflectionTestUtils.setField(screener, "maxLength", 4096);
+        ReflectionTestUtils.setField(screener, "clockSkewSeconds", SKEW_SECONDS);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "HS256", "HS384", "HS512", "ES256", "EdDSA" })
+    void acceptsTokensWeIssue(String algorithm) {
+        assertNull(screener.screen(token("{\"alg\":\"" + algorithm + "\"}", payload(future()))));
+    }
+
+    @Test
+    void acceptsTokenWithoutExpiry() {
+        assertNull(screener.screen(token("{\"alg\":\"HS256\"}", "{\"sub\":\"jane.doe\"}")));
+    }
+
+    @Test
+    void rejectsEmptyTooShortAndTooLong() {
+        assertEquals(TokenPreScreener.Rejection.EMPTY, screener.screen(null));
+        assertEquals(TokenPreScreener.Rejection.EMPTY, screener.screen(""));
+        assertEquals(TokenPreScreener.Rejection.TOO_SHORT, screener.screen("eyJhbGciOiJIUzI1NiJ9.e30.c2ln"));
+
+        ReflectionTestUtils.setField(screener, "maxLength", 64);
+        assertEquals(TokenPreScreener.Rejection.TOO_LONG,
+                screener.screen(token("{\"alg\":\"HS256\"}", payload(future()))));
+    }
+
+    @Test
+    void rejectsWrongSegmentCount() {
+        String valid = token("{\"alg\":\"HS256\"}", payload(future()));
+        String[] parts = valid.split("\\.");
+
+        assertEquals(TokenPreScreener.Rejection.SEGMENT_COUNT, screener.screen(parts[0] + parts[1] + parts[2]));
+        assertEquals(TokenPreScreener.Rejection.SEGMENT_COUNT, screener.screen(parts[0] + "." + parts[1] + parts[2]));
+        assertEquals(TokenPreScreener.Rejection.SEGMENT_COUNT, screener.screen(valid + ".extra"));
+        assertEquals(TokenPreScreener.Rejection.SEGMENT_COUNT, screener.screen(parts[0] + ".." + parts[2]));
+        assertEquals(TokenPreScreener.Rejection.SEGMENT_COUNT, screener.screen("." + parts[1] + "." + parts[2]));
+        assertEquals(TokenPreScreener.Rejection.SEGMENT_COUNT, screener.screen(parts[0] + "." + parts[1] + "."));
+    }
+
+    @Test
+    void rejectsCharactersOutsideBase64Url() {
+        String valid = token("{\"alg\":\"HS256\"}", payload(future()));
+
+        assertEquals(TokenPreScreener.Rejection.ALPHABET, screener.screen(valid + "="));
+        assertEquals(TokenPreScreener.Rejection.ALPHABET, screener.screen(valid.substring(0, 40) + "+" + valid.substring(41)));
+        assertEquals(TokenPreScreener.Rejection.ALPHABET, screener.screen("Bearer " + valid));
+    }
+
+    @Test
+    void rejectsSegmentsWithImpossibleLength() {
+        String header = encode("{\"alg\":\"HS256\"}");
+        String payload = encode(payload(future()));
+
+        assertEquals(TokenPreScreener.Rejection.HEADER,
+                screener.screen(impossibleLength(header) + "." + payload + "." + SIGNATURE));
+        assertEquals(TokenPreScreener.Rejection.PAYLOAD,
+                screener.screen(header + "." + impossibleLength(payload) + "." + SIGNATURE));
+    }
+
+    @Test
+    void rejectsUnsupportedOrMissingAlgorithm() {
+        assertEquals(TokenPreScreener.Rejection.ALGORITHM, screener.screen(token("{\"alg\":\"none\"}", payload(future()))));
+        assertEquals(TokenPreScreener.Rejection.ALGORITHM, screener.screen(token("{\"alg\":\"RS256\"}", payload(future()))));
+        assertEquals(TokenPreScreener.Rejection.ALGORITHM, screener.screen(token("{\"typ\":\"JWT\"}", payload(future()))));
+        assertEquals(TokenPreScreener.Rejection.ALGORITHM, screener.screen(token("{\"alg\":\"HS256", payload(future()))));
+        // The name only counts as a member name, not as a value
+        assertEquals(TokenPreScreener.Rejection.ALGORITHM,
+                screener.screen(token("{\"typ\":\"alg\",\"x\":\"HS256\"}", payload(future()))));
+    }
+
+    @Test
+    void rejectsExpiredTokens() {
+        assertEquals(TokenPreScreener.Rejection.EXPIRED,
+                screener.screen(token("{\"alg\":\"HS256\"}", payload(now() - 3600))));
+    }
+
+    @Test
+    void expiryWithinClockSkewIsAccepted() {
+        assertNull(screener.screen(token("{\"alg\":\"HS256\"}", payload(now() - SKEW_SECONDS / 2))));
+        assertEquals(TokenPreScreener.Rejection.EXPIRED,
+                screener.screen(token("{\"alg\":\"HS256\"}", payload(now() - SKEW_SECONDS * 2))));
+    }
+
+    @Test
+    void findsAlgAtEveryByteAlignment() {
+        for (int padding = 0; padding < 3; padding++) {
+            String header = "{" + " ".repeat(padding) + "\"alg\":\"HS256\"}";
+            assertEquals(padding, (header.indexOf("\"alg\"") + 2) % 3);
+            assertNull(screener.screen(token(header, payload(future()))), header);
+
+            String rejected = "{" + " ".repeat(padding) + "\"alg\":\"none\"}";
+            assertEquals(TokenPreScreener.Rejection.ALGORITHM, screener.screen(token(rejected, payload(future()))), rejected);
+        }
+    }
+
+    @Test
+    void findsExpAtEveryByteAlignment() {
+        for (int padding = 0; padding < 3; padding++) {
+            String expired = "{\"sub\":\"jane\"," + " ".repeat(padding) + "\"exp\":" + (now() - 3600) + "}";
+            String valid = "{\"sub\":\"jane\"," + " ".repeat(padding) + "\"exp\":" + future() + "}";
+            assertEquals(padding, (expired.indexOf("\"exp\"") + 1) % 3);
+
+            assertEquals(TokenPreScreener.Rejection.EXPIRED, screener.screen(token("{\"alg\":\"HS256\"}", expired)), expired);
+            assertNull(screener.screen(token("{\"alg\":\"HS256\"}", valid)), valid);
+        }
+    }
+
+    @Test
+    void allowsWhitespaceAroundColon() {
+        assertNull(screener.screen(token("{\"alg\" :\t\"HS256\"}", payload(future()))));
+        assertEquals(TokenPreScreener.Rejection.EXPIRED,
+                screener.screen(token("{\"alg\":\"HS256\"}", "{\"exp\" \n:  " + (now() - 3600) + "}")));
+    }
+
+    @Test
+    void expInsideStringValueIsIgnored() {
+        String past = Long.toString(now() - 3600);
+
+        assertNull(screener.screen(token("{\"alg\":\"HS256\"}",
+                "{\"sub\":\"exp\",\"note\":\"\\\"exp\\\":" + past + "\",\"exp\":" + future() + "}")));
+        assertEquals(TokenPreScreener.Rejection.EXPIRED, screener.screen(token("{\"alg\":\"HS256\"}",
+                "{\"sub\":\"exp\",\"exp\":" + past + "}")));
+    }
+
+    @Test
+    void countsRejectionsByReason() {
+        screener.screen("");
+        screener.screen(token("{\"alg\":\"none\"}", payload(future())));
+        screener.screen(token("{\"alg\":\"none\"}", payload(future())));
+
+        assertEquals(1.0, registry.get("jwt.prescreen.rejected").tag("reason", "empty").counter().count());
+        assertEquals(2.0, registry.get("jwt.prescreen.rejected").tag("reason", "algorithm").counter().count());
+    }
+
+    private static String token(String header, String payload) {
+        return encode(header) + "." + encode(payload) + "." + SIGNATURE;
+    }
+
+    private static String payload(long expiresAt) {
+        return "{\"jti\":\"0f8b4f1e\",\"sub\":\"jane.doe\",\"exp\":" + expiresAt + "}";
+    }
+
+    private static String encode(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // No base64 encoding is one character past a multiple of four
+    private static String impossibleLength(String segment) {
+        StringBuilder padded = new StringBuilder(segment);
+        while (padded.length() % 4 != 1) {
+            padded.append('A');
+        }
+        return padded.toString();
+    }
+
+    private static long now() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    private static long future() {
+        return now() + 3600;
+    }
+}
@@ -0,0 +1,158 @@
+package com.juahaki.juahaki.util.timer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs with a 1 ms tick, so deadlines are tick counts and the level boundaries are at
+ * 64, 4096, 262144 and 2^24 ticks from now.
+ */
+class TimingWheelTest {
+
+    private static final long LEVEL_1 = 64;
+    private static final long LEVEL_2 = 64 * 64;
+    private static final long LEVEL_3 = 64 * 64 * 64;
+    private static final long SPAN = 64L * 64 * 64 * 64;
+
+    private final List<Long> fired = new ArrayList<>();
+
+    @ParameterizedTest
+    @ValueSource(longs = {0, 1_000_003})
+    void firesEachDeadlineOnceOnItsTick(long start) {
+        TimingWheel<Long> wheel = new TimingWheel<>(1, start);
+        long[] offsets = {1, 63, LEVEL_1, LEVEL_1 + 1, LEVEL_2 - 1, LEVEL_2, LEVEL_3 - 1, LEVEL_3,
+                SPAN - 1, SPAN, SPAN + 12_345};
+        for (long offset : offsets) {
+            wheel.schedule(start + offset, start + offset);
+        }
+
+        for (long offset : offsets) {
+            long deadline = start + offset;
+            wheel.advance(deadline - 1, fired::add);
+            assertFalse(fired.contains(deadline), "fired early: " + offset);
+            wheel.advance(deadline, fired::add);
+            assertEquals(deadline, fired.get(fired.size() - 1), "not fired on time: " + offset);
+        }
+
+        wheel.advance(start + 2 * SPAN, fired::add);
+        assertEquals(offsets.length, fired.size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cascadesThroughEveryLevel() {
+        TimingWheel<Long> wheel = new TimingWheel<>(1, 0);
+        // Starts in level 3 and has a remainder for each lower level
+        long fromLevel3 = 2 * LEVEL_3 + 3 * LEVEL_2 + 5 * LEVEL_1 + 7;
+        // Starts in level 2 and drops straight to level 0
+        long fromLevel2 = 9 * LEVEL_2 + 11;
+        wheel.schedule(fromLevel3, fromLevel3);
+        wheel.schedule(fromLevel2, fromLevel2);
+
+        wheel.advance(fromLevel2 - 1, fired::add);
+        assertTrue(fired.isEmpty());
+        wheel.advance(fromLevel2, fired::add);
+        assertEquals(List.of(fromLevel2), fired);
+
+        wheel.advance(fromLevel3 - 1, fired::add);
+        assertEquals(1, fired.size());
+        wheel.advance(fromLevel3, fired::add);
+        assertEquals(List.of(fromLevel2, fromLevel3), fired);
+    }
+
+    @Test
+    void deadlinesBeyondSpanAreParkedAndReplaced() {
+        TimingWheel<Long> wheel = new TimingWheel<>(1, 0);
+        long far = 3 * SPAN + 99;
+        wheel.schedule(far, far);
+
+        // Parked in the last slot and re-placed each time it comes round
+        wheel.advance(far - 1, fired::add);
+        assertTrue(fired.isEmpty());
+        assertEquals(1, wheel.size());
+
+        wheel.advance(far, fired::add);
+        assertEquals(List.of(far), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cancelAfterCascadeRemovesEntry() {
+        TimingWheel<Long> wheel = new TimingWheel<>(1, 0);
+        long deadline = LEVEL_3 + LEVEL_2 + 10;
+        long other = deadline + 1;
+        TimingWheel.Timeout<Long> timeout = wheel.schedule(deadline, deadline);
+        wheel.schedule(other, other);
+
+        // Both have moved down from level 3 by now
+        wheel.advance(LEVEL_3 + LEVEL_2, fired::add);
+        assertTrue(wheel.cancel(timeout));
+        assertFalse(wheel.cancel(timeout));
+        assertEquals(1, wheel.size());
+
+        wheel.advance(other + LEVEL_3, fired::add);
+        assertEquals(List.of(other), fired);
+    }
+
+    @Test
+    void cancelAfterFiringReturnsFalse() {
+        TimingWheel<Long> wheel = new TimingWheel<>(1, 0);
+        TimingWheel.Timeout<Long> timeout = wheel.schedule(5L, 5);
+
+        wheel.advance(5, fired::add);
+
+        assertFalse(wheel.cancel(timeout));
+        assertFalse(wheel.cancel(null));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void pastDeadlineFiresOnNextTick() {
+        TimingWheel<Long> wheel = new TimingWheel<>(1, 1_000);
+        wheel.schedule(1L, 1);
+
+        wheel.advance(1_000, fired::add);
+        assertTrue(fired.isEmpty());
+        wheel.advance(1_001, fired::add);
+        assertEquals(List.of(1L), fired);
+    }
+
+    @Test
+    void deadlinesRoundUpToWholeTicks() {
+        TimingWheel<Long> wheel = new TimingWheel<>(10, 0);
+        wheel.schedule(15L, 15);
+        wheel.schedule(20L, 20);
+
+        wheel.advance(19, fired::add);
+        assertTrue(fired.isEmpty());
+        wheel.advance(29, fired::add);
+        assertEquals(List.of(15L, 20L), fired);
+    }
+
+    @Test
+    void idleWheelJumpsStraightToNow() {
+        TimingWheel<Long> wheel = new TimingWheel<>(1, 0);
+        wheel.advance(10 * SPAN, fired::add);
+
+        long deadline = 10 * SPAN + LEVEL_2;
+        wheel.schedule(deadline, deadline);
+        wheel.advance(deadline - 1, fired::add);
+        assertTrue(fired.isEmpty());
+        wheel.advance(deadline, fired::add);
+        assertEquals(List.of(deadline), fired);
+    }
+
+    @Test
+    void rejectsNonPositiveTick() {
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel<>(0, 0));
+    }
+}